@@ -2,12 +2,12 @@ package com.chuyendeweb2.group05;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.ComponentScan;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableJpaAuditing
+@EnableScheduling
 @SpringBootApplication
-@ComponentScan(basePackages = "com.chuyendeweb2.group05")
 public class MarketOnlineApplication {
 
 	public static void main(String[] args) {
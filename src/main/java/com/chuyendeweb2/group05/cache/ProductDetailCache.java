@@ -0,0 +1,234 @@
+package com.chuyendeweb2.group05.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chuyendeweb2.group05.dto.CacheStatsDTO;
+import com.chuyendeweb2.group05.dto.ProductImageDTO;
+import com.chuyendeweb2.group05.dto.ProductResponseDTO;
+import com.chuyendeweb2.group05.event.ProductDetailInvalidatedEvent;
+import com.chuyendeweb2.group05.search.ProductCatalogListener;
+import com.chuyendeweb2.group05.search.ProductDocument;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of product detail responses, bounded by an estimate of
+ * their heap size. Entries expire after a fixed TTL and the least recently
+ * used ones are evicted first when the bound is exceeded.
+ * <p>
+ * Concurrent misses for the same product share a single load. Entries are
+ * dropped after committed product changes (via the catalog dispatcher) and
+ * after image, review and favorite changes (via
+ * {@link ProductDetailInvalidatedEvent}).
+ */
+@Component
+public class ProductDetailCache implements ProductCatalogListener {
+
+    private final long maxWeight;
+    private final long ttlNanos;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, CompletableFuture<ProductResponseDTO>> loading = new ConcurrentHashMap<>();
+    private long totalWeight;
+    // Bumped by every invalidation; a load that overlaps one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductDetailCache(
+            @Value("${product.detail-cache.max-weight-bytes:33554432}") long maxWeight,
+            @Value("${product.detail-cache.ttl:10m}") Duration ttl) {
+        this.maxWeight = maxWeight;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    /**
+     * Returns the cached response for the product, loading it with
+     * {@code loader} on a miss. Exceptions thrown by the loader are rethrown
+     * to every caller waiting on that load and nothing is cached.
+     */
+    public ProductResponseDTO get(Long productId, Function<Long, ProductResponseDTO> loader) {
+        ProductResponseDTO cached = lookup(productId);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        misses.incrementAndGet();
+
+        CompletableFuture<ProductResponseDTO> created = new CompletableFuture<>();
+        CompletableFuture<ProductResponseDTO> inFlight = loading.putIfAbsent(productId, created);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+
+        long startGeneration = generation.get();
+        try {
+            loads.incrementAndGet();
+            ProductResponseDTO loaded = loader.apply(productId);
+            if (generation.get() == startGeneration) {
+                store(productId, loaded);
+            }
+            created.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(productId, created);
+        }
+    }
+
+    public void invalidate(Long productId) {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        loading.remove(productId);
+        synchronized (entries) {
+            Entry removed = entries.remove(productId);
+            if (removed != null) {
+                totalWeight -= removed.weight;
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        loading.clear();
+        synchronized (entries) {
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+
+    public CacheStatsDTO stats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        int size;
+        long weight;
+        synchronized (entries) {
+            size = entries.size();
+            weight = totalWeight;
+        }
+        return CacheStatsDTO.builder()
+                .hits(hitCount)
+                .misses(missCount)
+                .hitRate(hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount))
+                .loads(loads.get())
+                .evictions(evictions.get())
+                .expirations(expirations.get())
+                .invalidations(invalidations.get())
+                .entries(size)
+                .weightBytes(weight)
+                .maxWeightBytes(maxWeight)
+                .build();
+    }
+
+    @Override
+    public void onProductUpserted(ProductDocument document) {
+        invalidate(document.getId());
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        invalidate(productId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductDetailInvalidated(ProductDetailInvalidatedEvent event) {
+        invalidate(event.getProductId());
+    }
+
+    private ProductResponseDTO lookup(Long productId) {
+        synchronized (entries) {
+            Entry entry = entries.get(productId);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.loadedAt > ttlNanos) {
+                entries.remove(productId);
+                totalWeight -= entry.weight;
+                expirations.incrementAndGet();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void store(Long productId, ProductResponseDTO value) {
+        Entry entry = new Entry(value, weigh(value), System.nanoTime());
+        if (entry.weight > maxWeight) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(productId, entry);
+            if (previous != null) {
+                totalWeight -= previous.weight;
+            }
+            totalWeight += entry.weight;
+
+            Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+            while (totalWeight > maxWeight && eldest.hasNext()) {
+                Entry evicted = eldest.next().getValue();
+                eldest.remove();
+                totalWeight -= evicted.weight;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static ProductResponseDTO await(CompletableFuture<ProductResponseDTO> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Rough heap size of a response: fixed object overhead plus two bytes per char
+    private static long weigh(ProductResponseDTO product) {
+        long weight = 256 + 2L * (length(product.getName()) + length(product.getDescription())
+                + length(product.getImageUrl()) + length(product.getCategoryName())
+                + length(product.getSellerName()) + length(product.getApprovedByName()));
+        if (product.getImages() != null) {
+            for (ProductImageDTO image : product.getImages()) {
+                weight += 96 + 2L * (length(image.getUrl()) + length(image.getFilename()));
+            }
+        }
+        return weight;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static class Entry {
+        private final ProductResponseDTO value;
+        private final long weight;
+        private final long loadedAt;
+
+        private Entry(ProductResponseDTO value, long weight, long loadedAt) {
+            this.value = value;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
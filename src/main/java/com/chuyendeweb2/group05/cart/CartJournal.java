@@ -0,0 +1,149 @@
+package com.chuyendeweb2.group05.cart;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local log of the cart line changes that {@link WriteBehindCartStore}
+ * has not written to the database yet. It is split into numbered segments
+ * ({@code cart-<n>.journal}); a flush starts a new segment and deletes the
+ * older ones once their changes are written.
+ * <p>
+ * Each record is {@code cartId,itemId,quantity} with the line's quantity
+ * after the change (0 once removed), so replaying a record twice is harmless
+ * and a torn last record is simply skipped. Records reach the OS on every
+ * append and the disk on every rotation.
+ */
+class CartJournal implements Closeable {
+
+    @FunctionalInterface
+    interface RecordHandler {
+        void accept(long cartId, long itemId, int quantity);
+    }
+
+    private static final String PREFIX = "cart-";
+    private static final String SUFFIX = ".journal";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("cart-\\d+\\.journal");
+
+    private final Path directory;
+    private long sequence;
+    private FileChannel channel;
+
+    CartJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Path> existing = segments(directory);
+        this.sequence = existing.isEmpty() ? 0 : sequenceOf(existing.get(existing.size() - 1));
+        open();
+    }
+
+    synchronized void append(long cartId, long itemId, int quantity) {
+        ByteBuffer record = ByteBuffer.wrap((cartId + "," + itemId + "," + quantity + "\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to cart journal", e);
+        }
+    }
+
+    // All records of one change set in a single write; itemId -> quantity
+    synchronized void appendAll(long cartId, Map<Long, Integer> quantities) {
+        StringBuilder records = new StringBuilder();
+        quantities.forEach((itemId, quantity) ->
+                records.append(cartId).append(',').append(itemId).append(',').append(quantity).append('\n'));
+        ByteBuffer buffer = ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.US_ASCII));
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to cart journal", e);
+        }
+    }
+
+    /**
+     * Syncs and closes the current segment and starts a new one. Returns the
+     * closed segments, which only hold changes appended before this call.
+     */
+    synchronized List<Path> rotate() throws IOException {
+        channel.force(false);
+        channel.close();
+        open();
+        List<Path> closed = new ArrayList<>(segments(directory));
+        closed.removeIf(segment -> sequenceOf(segment) >= sequence);
+        return closed;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private void open() throws IOException {
+        sequence++;
+        channel = FileChannel.open(directory.resolve(PREFIX + sequence + SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Journal segments in the directory, oldest first; empty when it does not
+     * exist.
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> SEGMENT_NAME.matcher(file.getFileName().toString()).matches())
+                    .sorted(Comparator.comparingLong(CartJournal::sequenceOf))
+                    .toList();
+        }
+    }
+
+    static void read(Path segment, RecordHandler handler) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length != 3) {
+                    continue;
+                }
+                try {
+                    handler.accept(Long.parseLong(fields[0]), Long.parseLong(fields[1]), Integer.parseInt(fields[2]));
+                } catch (NumberFormatException e) {
+                    // Torn record from a crash mid-append
+                }
+            }
+        }
+    }
+
+    static void delete(List<Path> segments) throws IOException {
+        for (Path segment : segments) {
+            Files.deleteIfExists(segment);
+        }
+    }
+
+    private static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+}
@@ -0,0 +1,733 @@
+package com.chuyendeweb2.group05.cart;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chuyendeweb2.group05.dto.CartItemResponseDTO;
+import com.chuyendeweb2.group05.dto.CartResponseDTO;
+import com.chuyendeweb2.group05.entity.meta.Product;
+import com.chuyendeweb2.group05.event.CartCheckedOutEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Optional write-behind store for carts ({@code cart.write-behind.enabled}).
+ * Active carts live in memory, guarded by striped per-user locks, and a
+ * quantity change is one journal append instead of a database transaction.
+ * Changes to the same line between flushes coalesce into one row write; every
+ * few seconds the dirty carts are written to {@code cart_items} and
+ * {@code carts} in JDBC batches.
+ * <p>
+ * New carts and new lines are inserted right away so that item IDs handed to
+ * clients never change. Changes not yet flushed are in {@link CartJournal} and
+ * are replayed on the next startup after a crash. Checkout calls
+ * {@link #beginCheckout(Integer)} first, so the order is built from the cart
+ * the user saw.
+ * <p>
+ * Idle clean carts are evicted once more than {@code cart.write-behind.max-carts}
+ * are held. Per instance: with several instances, route a user to one of them.
+ */
+@Component
+@Slf4j
+public class WriteBehindCartStore {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final JdbcTemplate jdbcTemplate;
+    // Flushes commit on their own, even when called from a checkout transaction
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int maxCarts;
+    private final Path journalDirectory;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    // Guarded by the stripe of the user ID
+    private final Map<Integer, CartState> carts = new ConcurrentHashMap<>();
+    // User ID -> checkouts running; background flushes leave these carts alone
+    private final Map<Integer, Integer> checkouts = new ConcurrentHashMap<>();
+    // Serializes background flushes with each other and with shutdown; single-user flushes do not take it
+    private final Object flushLock = new Object();
+    private CartJournal journal;
+
+    public WriteBehindCartStore(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${cart.write-behind.enabled:false}") boolean enabled,
+            @Value("${cart.write-behind.max-carts:10000}") int maxCarts,
+            @Value("${cart.write-behind.journal-dir:./data/cart-journal}") String journalDirectory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.enabled = enabled;
+        this.maxCarts = maxCarts;
+        this.journalDirectory = Path.of(journalDirectory);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        // Also when the store was switched off after a crash
+        replayJournal();
+        if (enabled) {
+            journal = new CartJournal(journalDirectory);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (enabled) {
+            flushAll();
+            journal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public CartResponseDTO getCart(Integer userId) {
+        synchronized (lockFor(userId)) {
+            return toResponse(state(userId));
+        }
+    }
+
+    public Optional<CartLine> findLineByProduct(Integer userId, Long productId) {
+        synchronized (lockFor(userId)) {
+            return state(userId).lines.values().stream()
+                    .filter(line -> line.getProductId().equals(productId))
+                    .findFirst();
+        }
+    }
+
+    public Optional<CartLine> findLine(Integer userId, Long itemId) {
+        synchronized (lockFor(userId)) {
+            return Optional.ofNullable(state(userId).lines.get(itemId));
+        }
+    }
+
+    /**
+     * Adds {@code quantity} units of the product to the user's cart. A new
+     * line is inserted at once with the product from {@code productLoader};
+     * an existing line only changes in memory.
+     */
+    public CartResponseDTO addQuantity(Integer userId, Long productId, int quantity,
+            Supplier<Product> productLoader) {
+        synchronized (lockFor(userId)) {
+            CartState state = state(userId);
+            CartLine line = state.lines.values().stream()
+                    .filter(existing -> existing.getProductId().equals(productId))
+                    .findFirst()
+                    .orElse(null);
+            if (line == null) {
+                line = insertLine(state.cartId, productLoader.get(), quantity);
+                journal.append(state.cartId, line.getItemId(), quantity);
+                state.lines.put(line.getItemId(), line);
+                state.totalDirty = true;
+            } else {
+                change(state, line, line.getQuantity() + quantity);
+            }
+            return toResponse(state);
+        }
+    }
+
+    /**
+     * Sets the quantity of one of the user's lines; 0 or less removes it.
+     */
+    public CartResponseDTO setQuantity(Integer userId, Long itemId, int quantity) {
+        synchronized (lockFor(userId)) {
+            CartState state = state(userId);
+            CartLine line = state.lines.get(itemId);
+            if (line == null) {
+                throw new EntityNotFoundException("Cart item not found with id: " + itemId);
+            }
+            change(state, line, Math.max(quantity, 0));
+            return toResponse(state);
+        }
+    }
+
+    /**
+     * Changes several lines of the user's cart under one acquisition of the
+     * user's lock. {@code plan} gets the current quantities by product ID and
+     * returns the final quantity of every line to change (0 removes it); it
+     * runs under the lock, so it validates exactly the cart it changes, and
+     * when it throws nothing changes. New lines are inserted in one
+     * transaction and take their product from {@code products}.
+     */
+    public CartResponseDTO applyBatch(Integer userId, Map<Long, Product> products,
+            Function<Map<Long, Integer>, Map<Long, Integer>> plan) {
+        synchronized (lockFor(userId)) {
+            CartState state = state(userId);
+            Map<Long, CartLine> linesByProduct = new LinkedHashMap<>();
+            state.lines.values().forEach(line -> linesByProduct.putIfAbsent(line.getProductId(), line));
+            Map<Long, Integer> currentQuantities = new LinkedHashMap<>();
+            linesByProduct.forEach((productId, line) -> currentQuantities.put(productId, line.getQuantity()));
+
+            Map<Long, Integer> changes = plan.apply(currentQuantities);
+            if (changes.isEmpty()) {
+                return toResponse(state);
+            }
+
+            // Item ID -> final quantity of the existing lines
+            Map<Long, Integer> updates = new LinkedHashMap<>();
+            List<Map.Entry<Long, Integer>> newLines = new ArrayList<>();
+            changes.forEach((productId, quantity) -> {
+                CartLine line = linesByProduct.get(productId);
+                if (line != null) {
+                    updates.put(line.getItemId(), Math.max(quantity, 0));
+                } else if (quantity > 0) {
+                    newLines.add(Map.entry(productId, quantity));
+                }
+            });
+
+            List<CartLine> inserted = newLines.isEmpty() ? List.of() : transactionTemplate.execute(status ->
+                    newLines.stream()
+                            .map(line -> insertLine(state.cartId, products.get(line.getKey()), line.getValue()))
+                            .toList());
+            try {
+                // Journal first: changes the journal could not take are not applied
+                journal.appendAll(state.cartId, updates);
+            } catch (RuntimeException e) {
+                List<Long> insertedIds = inserted.stream().map(CartLine::getItemId).toList();
+                jdbcTemplate.batchUpdate("delete from cart_items where id = ?", insertedIds, insertedIds.size(),
+                        (ps, itemId) -> ps.setLong(1, itemId));
+                throw e;
+            }
+
+            inserted.forEach(line -> state.lines.put(line.getItemId(), line));
+            updates.forEach((itemId, quantity) -> {
+                if (quantity == 0) {
+                    state.lines.remove(itemId);
+                } else {
+                    state.lines.put(itemId, state.lines.get(itemId).withQuantity(quantity));
+                }
+                state.pendingQuantities.put(itemId, quantity);
+            });
+            state.totalDirty = true;
+            return toResponse(state);
+        }
+    }
+
+    public void clear(Integer userId) {
+        synchronized (lockFor(userId)) {
+            CartState state = state(userId);
+            for (CartLine line : new ArrayList<>(state.lines.values())) {
+                change(state, line, 0);
+            }
+        }
+    }
+
+    /**
+     * Writes the user's pending changes now. Returns once they are committed,
+     * including any a running background flush had already taken. Call it
+     * outside a transaction: the write commits on its own connection.
+     * <p>
+     * Only the user's lock is taken, and never across the database write;
+     * writes of one cart run one at a time, so an older snapshot can never
+     * commit after a newer one.
+     */
+    public void flush(Integer userId) {
+        if (!enabled) {
+            return;
+        }
+        while (true) {
+            CartState state;
+            CompletableFuture<Void> running;
+            PendingWrite pending = null;
+            CompletableFuture<Void> writing = null;
+            synchronized (lockFor(userId)) {
+                state = carts.get(userId);
+                if (state == null) {
+                    return;
+                }
+                running = state.inFlight;
+                if (running == null) {
+                    if (state.isClean()) {
+                        return;
+                    }
+                    pending = state.takePending();
+                    writing = new CompletableFuture<>();
+                    state.inFlight = writing;
+                }
+            }
+            if (running != null) {
+                // A failed write puts its changes back, and the next round writes them
+                running.join();
+                continue;
+            }
+
+            try {
+                write(List.of(pending));
+            } catch (RuntimeException e) {
+                synchronized (lockFor(userId)) {
+                    // A cart dropped by checkout meanwhile has nothing left to write
+                    if (carts.get(userId) == state) {
+                        state.restore(pending);
+                    }
+                }
+                throw e;
+            } finally {
+                finishWrite(state, writing);
+            }
+            return;
+        }
+    }
+
+    /**
+     * Flushes the user's cart for a checkout and keeps background flushes off
+     * it until {@link #endCheckout(Integer)}. One running between the order
+     * commit and {@link #onCartCheckedOut} would write the old total back onto
+     * the emptied cart.
+     */
+    public void beginCheckout(Integer userId) {
+        if (!enabled) {
+            return;
+        }
+        checkouts.merge(userId, 1, Integer::sum);
+        try {
+            flush(userId);
+        } catch (RuntimeException e) {
+            endCheckout(userId);
+            throw e;
+        }
+    }
+
+    // Call once the checkout transaction has committed or rolled back
+    public void endCheckout(Integer userId) {
+        if (enabled) {
+            checkouts.computeIfPresent(userId, (id, running) -> running > 1 ? running - 1 : null);
+        }
+    }
+
+    // The order transaction emptied the cart in the database; reload it on next use
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCartCheckedOut(CartCheckedOutEvent event) {
+        if (enabled) {
+            synchronized (lockFor(event.getUserId())) {
+                carts.remove(event.getUserId());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cart.write-behind.flush-delay-ms:3000}")
+    public void flushAll() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            List<Path> closedSegments;
+            try {
+                closedSegments = journal.rotate();
+            } catch (IOException e) {
+                log.error("Could not rotate the cart journal, skipping this flush", e);
+                return;
+            }
+
+            Map<CartState, PendingWrite> batch = new HashMap<>();
+            // Carts a checkout is flushing or checking out; written by the checkout or the next run
+            List<CartState> skipped = new ArrayList<>();
+            CompletableFuture<Void> writing = new CompletableFuture<>();
+            carts.forEach((userId, state) -> {
+                synchronized (lockFor(userId)) {
+                    if (state.inFlight != null || checkouts.containsKey(userId)) {
+                        skipped.add(state);
+                    } else if (!state.isClean()) {
+                        batch.put(state, state.takePending());
+                        state.inFlight = writing;
+                    }
+                }
+            });
+            boolean written = false;
+            try {
+                if (!batch.isEmpty()) {
+                    write(batch.values());
+                }
+                written = true;
+            } catch (RuntimeException e) {
+                // Kept dirty, and the closed segments are kept until a flush succeeds
+                batch.forEach((state, pending) -> {
+                    synchronized (lockFor(state.userId)) {
+                        // A cart dropped by checkout meanwhile has nothing left to write
+                        if (carts.get(state.userId) == state) {
+                            state.restore(pending);
+                        }
+                    }
+                });
+                log.warn("Could not flush {} carts, retrying on the next run", batch.size(), e);
+            } finally {
+                batch.keySet().forEach(state -> finishWrite(state, writing));
+                writing.complete(null);
+            }
+            if (!written || !rejournal(skipped)) {
+                return;
+            }
+
+            try {
+                CartJournal.delete(closedSegments);
+            } catch (IOException e) {
+                log.warn("Could not delete flushed cart journal segments", e);
+            }
+            evictIdleCarts();
+            if (!batch.isEmpty()) {
+                log.debug("Flushed {} carts", batch.size());
+            }
+        }
+    }
+
+    /**
+     * The closed segments may hold the only journal records of the skipped
+     * carts' changes. Waits for their own writes to finish, then appends what
+     * is still pending, which includes the changes of a write that failed, to
+     * the current segment. Returns false when the closed segments must be kept.
+     */
+    private boolean rejournal(List<CartState> skipped) {
+        try {
+            for (CartState state : skipped) {
+                while (true) {
+                    CompletableFuture<Void> running;
+                    synchronized (lockFor(state.userId)) {
+                        // A cart dropped by checkout meanwhile has nothing left to write
+                        if (carts.get(state.userId) != state) {
+                            break;
+                        }
+                        running = state.inFlight;
+                        if (running == null) {
+                            if (!state.pendingQuantities.isEmpty()) {
+                                journal.appendAll(state.cartId, state.pendingQuantities);
+                            }
+                            break;
+                        }
+                    }
+                    running.join();
+                }
+            }
+            return true;
+        } catch (UncheckedIOException e) {
+            log.warn("Could not journal the pending changes of {} carts, keeping the old segments",
+                    skipped.size(), e);
+            return false;
+        }
+    }
+
+    private void finishWrite(CartState state, CompletableFuture<Void> writing) {
+        synchronized (lockFor(state.userId)) {
+            if (state.inFlight == writing) {
+                state.inFlight = null;
+            }
+        }
+        writing.complete(null);
+    }
+
+    private void change(CartState state, CartLine line, int quantity) {
+        // Journal first: a change the journal could not take is not applied
+        journal.append(state.cartId, line.getItemId(), quantity);
+        if (quantity == 0) {
+            state.lines.remove(line.getItemId());
+        } else {
+            state.lines.put(line.getItemId(), line.withQuantity(quantity));
+        }
+        state.pendingQuantities.put(line.getItemId(), quantity);
+        state.totalDirty = true;
+    }
+
+    private CartState state(Integer userId) {
+        CartState state = carts.get(userId);
+        if (state == null) {
+            state = load(userId);
+            carts.put(userId, state);
+        }
+        state.lastAccess = System.nanoTime();
+        return state;
+    }
+
+    private CartState load(Integer userId) {
+        List<CartLine> lines = new ArrayList<>();
+        Long[] cartId = { null };
+        jdbcTemplate.query("""
+                select c.id as cart_id, i.id as item_id, i.product_id, i.quantity,
+                       p.name, p.image_url, p.price
+                from carts c
+                left join cart_items i on i.cart_id = c.id
+                left join products p on p.id = i.product_id
+                where c.user_id = ?
+                order by i.id
+                """, rs -> {
+            cartId[0] = rs.getLong("cart_id");
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                lines.add(new CartLine(itemId, rs.getLong("product_id"), rs.getString("name"),
+                        rs.getString("image_url"), rs.getBigDecimal("price"), rs.getInt("quantity")));
+            }
+        }, userId);
+
+        CartState state = new CartState(userId, cartId[0] != null ? cartId[0] : insertCart(userId));
+        lines.forEach(line -> state.lines.put(line.getItemId(), line));
+        return state;
+    }
+
+    private long insertCart(Integer userId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "insert into carts (user_id, total_amount, created_at, updated_at) values (?, 0, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            ps.setInt(1, userId);
+            ps.setTimestamp(2, now);
+            ps.setTimestamp(3, now);
+            return ps;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+
+    private CartLine insertLine(long cartId, Product product, int quantity) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("""
+                    insert into cart_items (cart_id, product_id, quantity, seller_id, created_at, updated_at, deleted)
+                    values (?, ?, ?, ?, ?, ?, false)
+                    """, Statement.RETURN_GENERATED_KEYS);
+            ps.setLong(1, cartId);
+            ps.setLong(2, product.getId());
+            ps.setInt(3, quantity);
+            ps.setLong(4, product.getSeller().getId().longValue());
+            ps.setTimestamp(5, now);
+            ps.setTimestamp(6, now);
+            return ps;
+        }, keyHolder);
+        return new CartLine(keyHolder.getKey().longValue(), product.getId(), product.getName(),
+                product.getImageUrl(), product.getPrice(), quantity);
+    }
+
+    private void write(Collection<PendingWrite> pendingWrites) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        pendingWrites.forEach(pending -> quantities.putAll(pending.quantities));
+        Map<Long, BigDecimal> totals = pendingWrites.stream()
+                .collect(Collectors.toMap(pending -> pending.cartId, pending -> pending.total));
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            writeLines(quantities, now);
+            List<Map.Entry<Long, BigDecimal>> cartTotals = new ArrayList<>(totals.entrySet());
+            jdbcTemplate.batchUpdate("update carts set total_amount = ?, updated_at = ? where id = ?",
+                    cartTotals, cartTotals.size(), (ps, total) -> {
+                        ps.setBigDecimal(1, total.getValue());
+                        ps.setTimestamp(2, now);
+                        ps.setLong(3, total.getKey());
+                    });
+        });
+    }
+
+    // Item ID -> quantity; 0 deletes the line
+    private void writeLines(Map<Long, Integer> quantities, Timestamp now) {
+        List<Map.Entry<Long, Integer>> updates = new ArrayList<>();
+        List<Long> deletes = new ArrayList<>();
+        quantities.forEach((itemId, quantity) -> {
+            if (quantity > 0) {
+                updates.add(Map.entry(itemId, quantity));
+            } else {
+                deletes.add(itemId);
+            }
+        });
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("update cart_items set quantity = ?, updated_at = ? where id = ?",
+                    updates, updates.size(), (ps, update) -> {
+                        ps.setInt(1, update.getValue());
+                        ps.setTimestamp(2, now);
+                        ps.setLong(3, update.getKey());
+                    });
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("delete from cart_items where id = ?", deletes, deletes.size(),
+                    (ps, itemId) -> ps.setLong(1, itemId));
+        }
+    }
+
+    // Applies the changes a crash left in the journal, then recomputes the touched carts' totals
+    private void replayJournal() throws IOException {
+        List<Path> segments = CartJournal.segments(journalDirectory);
+        if (segments.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        Set<Long> cartIds = new TreeSet<>();
+        for (Path segment : segments) {
+            CartJournal.read(segment, (cartId, itemId, quantity) -> {
+                quantities.put(itemId, quantity);
+                cartIds.add(cartId);
+            });
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> {
+            writeLines(quantities, now);
+            List<Long> ids = new ArrayList<>(cartIds);
+            jdbcTemplate.batchUpdate("""
+                    update carts c set updated_at = ?, total_amount = (
+                        select coalesce(sum(p.price * i.quantity), 0)
+                        from cart_items i inner join products p on p.id = i.product_id
+                        where i.cart_id = c.id)
+                    where c.id = ?
+                    """, ids, ids.size(), (ps, cartId) -> {
+                ps.setTimestamp(1, now);
+                ps.setLong(2, cartId);
+            });
+        });
+        CartJournal.delete(segments);
+        log.info("Replayed {} cart line changes from {} journal segments", quantities.size(), segments.size());
+    }
+
+    private void evictIdleCarts() {
+        int excess = carts.size() - maxCarts;
+        if (excess <= 0) {
+            return;
+        }
+        List<CartState> idle = carts.values().stream()
+                .sorted(Comparator.comparingLong(state -> state.lastAccess))
+                .toList();
+        for (CartState state : idle) {
+            if (excess <= 0) {
+                break;
+            }
+            synchronized (lockFor(state.userId)) {
+                if (state.isClean() && state.inFlight == null && carts.remove(state.userId, state)) {
+                    excess--;
+                }
+            }
+        }
+    }
+
+    private CartResponseDTO toResponse(CartState state) {
+        List<CartItemResponseDTO> items = state.lines.values().stream()
+                .map(line -> CartItemResponseDTO.builder()
+                        .id(line.getItemId())
+                        .productId(line.getProductId())
+                        .productName(line.getProductName())
+                        .productImageUrl(line.getProductImageUrl())
+                        .productPrice(line.getUnitPrice())
+                        .quantity(line.getQuantity())
+                        .totalPrice(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())))
+                        .build())
+                .collect(Collectors.toList());
+
+        return CartResponseDTO.builder()
+                .id(state.cartId)
+                .items(items)
+                .totalAmount(state.total())
+                .totalItems(items.size())
+                .build();
+    }
+
+    private Object lockFor(Integer userId) {
+        return locks[userId.hashCode() & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * One line of a cart held in memory, with the product fields a cart
+     * response shows. Immutable.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class CartLine {
+        private final Long itemId;
+        private final Long productId;
+        private final String productName;
+        private final String productImageUrl;
+        private final BigDecimal unitPrice;
+        private final int quantity;
+
+        CartLine withQuantity(int newQuantity) {
+            return new CartLine(itemId, productId, productName, productImageUrl, unitPrice, newQuantity);
+        }
+    }
+
+    // Guarded by the stripe of userId
+    private static final class CartState {
+        private final Integer userId;
+        private final long cartId;
+        private final Map<Long, CartLine> lines = new LinkedHashMap<>();
+        // Item ID -> quantity to write; 0 deletes the line
+        private Map<Long, Integer> pendingQuantities = new HashMap<>();
+        private boolean totalDirty;
+        // Completes when the write that took this cart's last pending changes has committed or failed
+        private CompletableFuture<Void> inFlight;
+        private long lastAccess;
+
+        private CartState(Integer userId, long cartId) {
+            this.userId = userId;
+            this.cartId = cartId;
+        }
+
+        private boolean isClean() {
+            return pendingQuantities.isEmpty() && !totalDirty;
+        }
+
+        private BigDecimal total() {
+            return lines.values().stream()
+                    .map(line -> line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+
+        private PendingWrite takePending() {
+            PendingWrite pending = new PendingWrite(cartId, total(), pendingQuantities);
+            pendingQuantities = new HashMap<>();
+            totalDirty = false;
+            return pending;
+        }
+
+        // After a failed write; changes made since the snapshot win
+        private void restore(PendingWrite pending) {
+            pending.quantities.forEach(pendingQuantities::putIfAbsent);
+            totalDirty = true;
+        }
+    }
+
+    private static final class PendingWrite {
+        private final long cartId;
+        private final BigDecimal total;
+        private final Map<Long, Integer> quantities;
+
+        private PendingWrite(long cartId, BigDecimal total, Map<Long, Integer> quantities) {
+            this.cartId = cartId;
+            this.total = total;
+            this.quantities = quantities;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import com.chuyendeweb2.group05.dto.CartBatchRequestDTO;
 import com.chuyendeweb2.group05.dto.CartItemRequestDTO;
 import com.chuyendeweb2.group05.dto.CartResponseDTO;
 import com.chuyendeweb2.group05.response.ErrorResponseDTO;
@@ -109,6 +110,31 @@ public class CartController {
         }
     }
 
+    /**
+     * Thêm, cập nhật và xóa nhiều sản phẩm trong giỏ hàng trong một lần gọi
+     * 
+     * @param userDetails Thông tin người dùng đã đăng nhập
+     * @param request     Danh sách thao tác ADD / UPDATE / REMOVE theo productId
+     * @return CartResponseDTO chứa giỏ hàng sau khi áp dụng tất cả thao tác
+     */
+    @PostMapping(value = "/items/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Apply cart operations", description = "Applies several add, update and remove operations to the user's cart at once; either all apply or none")
+    public ResponseEntity<?> applyCartOperations(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @RequestBody CartBatchRequestDTO request) {
+        try {
+            Integer userId = userService.getUserIdByEmail(userDetails.getUsername());
+            CartResponseDTO cart = cartService.applyCartOperations(userId, request);
+            return ResponseEntity.ok(cart);
+        } catch (EntityNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponseDTO("Item Not Found", e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponseDTO("Invalid Request", e.getMessage()));
+        }
+    }
+
     /**
      * Xóa toàn bộ giỏ hàng
      * 
@@ -4,6 +4,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -11,6 +12,8 @@ import org.springframework.web.bind.annotation.*;
 
 import com.chuyendeweb2.group05.dto.CategoryCreateRequestDTO;
 import com.chuyendeweb2.group05.dto.CategoryResponseDTO;
+import com.chuyendeweb2.group05.dto.CategoryTreeDTO;
+import com.chuyendeweb2.group05.dto.CategoryTreeNodeDTO;
 import com.chuyendeweb2.group05.dto.CategoryUpdateRequestDTO;
 import com.chuyendeweb2.group05.response.ApiResponse;
 import com.chuyendeweb2.group05.service.CategoryService;
@@ -40,6 +43,21 @@ public class CategoryController {
         return ResponseEntity.ok(ApiResponse.success(categoryService.getActiveCategories()));
     }
 
+    /**
+     * API lấy toàn bộ cây danh mục đang hoạt động trong một lần gọi.
+     * Trả về ETag; khi client gửi If-None-Match trùng khớp, phản hồi là 304 không có nội dung.
+     */
+    @Operation(summary = "Lấy cây danh mục đang hoạt động", description = "Trả về toàn bộ cây danh mục đang hoạt động kèm ETag để client kiểm tra lại bằng If-None-Match.")
+    @GetMapping("/tree")
+    public ResponseEntity<ApiResponse<List<CategoryTreeNodeDTO>>> getCategoryTree() {
+        CategoryTreeDTO tree = categoryService.getCategoryTree();
+        // With an ETag on the entity, Spring answers a matching If-None-Match with 304
+        return ResponseEntity.ok()
+                .eTag(tree.getVersion())
+                .cacheControl(CacheControl.noCache())
+                .body(ApiResponse.success(tree.getRoots()));
+    }
+
     /**
      * API lấy toàn bộ danh mục.
      * Chỉ dành cho quản trị viên.
@@ -10,6 +10,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import com.chuyendeweb2.group05.dto.FavoriteDTO;
+import com.chuyendeweb2.group05.dto.SliceResponseDTO;
 import com.chuyendeweb2.group05.entity.meta.User;
 import com.chuyendeweb2.group05.service.FavoriteService;
 
@@ -61,6 +62,20 @@ public class FavoriteController {
         return ResponseEntity.ok(favoriteService.getUserFavorites(user, pageable));
     }
 
+    /**
+     * Lấy danh sách sản phẩm yêu thích của người dùng hiện tại, không kèm tổng
+     * số (cuộn vô hạn).
+     *
+     * @param user     Người dùng hiện tại (được xác thực thông qua token)
+     * @param pageable Đối tượng phân trang
+     * @return SliceResponseDTO<FavoriteDTO> chứa danh sách và cờ hasNext
+     */
+    @GetMapping("/list/slice")
+    public ResponseEntity<SliceResponseDTO<FavoriteDTO>> getUserFavoritesSlice(@AuthenticationPrincipal User user,
+            Pageable pageable) {
+        return ResponseEntity.ok(SliceResponseDTO.of(favoriteService.getUserFavoritesSlice(user, pageable)));
+    }
+
     /**
      * Kiểm tra xem một sản phẩm có nằm trong danh sách yêu thích của người dùng hay
      * không.
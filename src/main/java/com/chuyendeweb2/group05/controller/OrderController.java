@@ -12,6 +12,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import com.chuyendeweb2.group05.dto.InventoryHoldDTO;
 import com.chuyendeweb2.group05.dto.OrderDTO;
 import com.chuyendeweb2.group05.dto.OrderRequest;
 import com.chuyendeweb2.group05.dto.OrderStatusUpdateRequest;
@@ -51,6 +52,30 @@ public class OrderController {
         return new ResponseEntity<>(orderDTO, HttpStatus.CREATED);
     }
 
+    /**
+     * Giữ hàng trong giỏ cho người dùng trong thời gian thanh toán.
+     */
+    @PostMapping("/checkout")
+    @Operation(summary = "Reserve the items in the user's cart while checking out")
+    public ResponseEntity<?> startCheckout(@AuthenticationPrincipal User user) {
+        try {
+            InventoryHoldDTO hold = orderService.startCheckout(user);
+            return ResponseEntity.ok(hold);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    /**
+     * Trả lại hàng đang giữ khi người dùng bỏ thanh toán.
+     */
+    @DeleteMapping("/checkout")
+    @Operation(summary = "Release the items reserved for the user's checkout")
+    public ResponseEntity<Void> releaseCheckout(@AuthenticationPrincipal User user) {
+        orderService.releaseCheckout(user);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Lấy thông tin chi tiết của đơn hàng theo ID.
      */
@@ -2,6 +2,7 @@ package com.chuyendeweb2.group05.controller;
 
 import com.chuyendeweb2.group05.dto.PostCreateRequestDTO;
 import com.chuyendeweb2.group05.dto.PostResponseDTO;
+import com.chuyendeweb2.group05.dto.SliceResponseDTO;
 import com.chuyendeweb2.group05.entity.meta.Post;
 import com.chuyendeweb2.group05.service.PostService;
 
@@ -85,6 +86,20 @@ public class PostController {
         return ResponseEntity.ok(activePosts);
     }
 
+    // Same as /active/paged without the total count, for infinite scroll
+    @GetMapping("/active/slice")
+    public ResponseEntity<SliceResponseDTO<PostResponseDTO>> getActivePostsSlice(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "desc") String direction) {
+
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortBy));
+
+        return ResponseEntity.ok(SliceResponseDTO.of(postService.getActivePostsSlice(pageable)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<PostResponseDTO> getPostById(@PathVariable Long id) {
         try {
@@ -18,22 +18,34 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.chuyendeweb2.group05.cache.ProductDetailCache;
+import com.chuyendeweb2.group05.dto.AutocompleteSuggestionDTO;
+import com.chuyendeweb2.group05.dto.BulkModerationRequestDTO;
+import com.chuyendeweb2.group05.dto.BulkModerationResultDTO;
+import com.chuyendeweb2.group05.dto.CacheStatsDTO;
+import com.chuyendeweb2.group05.dto.CursorPageResponseDTO;
+import com.chuyendeweb2.group05.dto.FacetedProductPageDTO;
+import com.chuyendeweb2.group05.dto.PriceHistogramDTO;
 import com.chuyendeweb2.group05.dto.ProductCreateRequestDTO;
+import com.chuyendeweb2.group05.dto.ProductImportJobDTO;
 import com.chuyendeweb2.group05.dto.ProductResponseDTO;
+import com.chuyendeweb2.group05.dto.SliceResponseDTO;
 import com.chuyendeweb2.group05.dto.ProductUpdateRequestDTO;
 import com.chuyendeweb2.group05.entity.meta.User;
 import com.chuyendeweb2.group05.enums.ProductStatus;
 import com.chuyendeweb2.group05.service.ProductImageService;
 import com.chuyendeweb2.group05.service.ProductImageStorageService;
+import com.chuyendeweb2.group05.service.ProductImportService;
 import com.chuyendeweb2.group05.service.ProductService;
+import com.chuyendeweb2.group05.service.ProductStatsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -46,8 +58,13 @@ public class ProductController {
         private final ProductService productService;
         private final ProductImageService productImageService;
         private final ProductImageStorageService productImageStorageService;
+        private final ProductStatsService productStatsService;
+        private final ProductDetailCache productDetailCache;
+        private final ProductImportService productImportService;
+        private final ObjectMapper objectMapper;
 
         @GetMapping("/search")
+        @Operation(summary = "Search active products", description = "Keyword search over active products. Use sortField=relevance to rank keyword matches")
         public ResponseEntity<Page<ProductResponseDTO>> searchProductAttachments(
                         @RequestParam(required = false) String keyword,
                         @RequestParam(required = false) Long productId,
@@ -70,7 +87,7 @@ public class ProductController {
         }
 
         @GetMapping("/active")
-        @Operation(summary = "Get all active products", description = "Retrieve all products with status ACTIVE with pagination, sorting and filtering")
+        @Operation(summary = "Get all active products", description = "Retrieve all products with status ACTIVE with pagination, sorting and filtering. Use sortField=relevance to rank keyword matches")
         public ResponseEntity<Page<ProductResponseDTO>> getActiveProducts(
                         @RequestParam(required = false) String keyword,
                         @RequestParam(required = false) Long categoryId,
@@ -91,6 +108,99 @@ public class ProductController {
                                 keyword, categoryId, minPrice, maxPrice, minStock, maxStock, pageable));
         }
 
+        @GetMapping("/active/slice")
+        @Operation(summary = "Get active products without totals", description = "Same results as /active without the total count, for infinite scroll. hasNext tells whether another page exists")
+        public ResponseEntity<SliceResponseDTO<ProductResponseDTO>> getActiveProductsSlice(
+                        @RequestParam(required = false) String keyword,
+                        @RequestParam(required = false) Long categoryId,
+                        @RequestParam(required = false) BigDecimal minPrice,
+                        @RequestParam(required = false) BigDecimal maxPrice,
+                        @RequestParam(required = false) Integer minStock,
+                        @RequestParam(required = false) Integer maxStock,
+                        @RequestParam(defaultValue = "0") int page,
+                        @RequestParam(defaultValue = "10") int size,
+                        @RequestParam(defaultValue = "id") String sortField,
+                        @RequestParam(defaultValue = "asc") String sortDirection) {
+
+                Sort sort = Sort.by(sortDirection.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC,
+                                sortField);
+                Pageable pageable = PageRequest.of(page, size, sort);
+
+                return ResponseEntity.ok(SliceResponseDTO.of(productService.getActiveProductsSlice(
+                                keyword, categoryId, minPrice, maxPrice, minStock, maxStock, pageable)));
+        }
+
+        @GetMapping("/autocomplete")
+        @Operation(summary = "Autocomplete search box", description = "Suggest active product and category names with a word starting with the given prefix, most popular first")
+        public ResponseEntity<List<AutocompleteSuggestionDTO>> autocomplete(
+                        @RequestParam String q,
+                        @RequestParam(defaultValue = "10") int limit) {
+                return ResponseEntity.ok(productService.autocomplete(q, Math.min(Math.max(limit, 1), 50)));
+        }
+
+        @GetMapping("/active/faceted")
+        @Operation(summary = "Get active products with facets", description = "Same results as /active plus category, price bucket and stock facet counts for the filtered result set")
+        public ResponseEntity<FacetedProductPageDTO> getActiveProductsWithFacets(
+                        @RequestParam(required = false) String keyword,
+                        @RequestParam(required = false) Long categoryId,
+                        @RequestParam(required = false) BigDecimal minPrice,
+                        @RequestParam(required = false) BigDecimal maxPrice,
+                        @RequestParam(required = false) Integer minStock,
+                        @RequestParam(required = false) Integer maxStock,
+                        @RequestParam(defaultValue = "0") int page,
+                        @RequestParam(defaultValue = "10") int size,
+                        @RequestParam(defaultValue = "id") String sortField,
+                        @RequestParam(defaultValue = "asc") String sortDirection) {
+
+                Sort sort = Sort.by(sortDirection.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC,
+                                sortField);
+                Pageable pageable = PageRequest.of(page, size, sort);
+
+                return ResponseEntity.ok(productService.getActiveProductsWithFacets(
+                                keyword, categoryId, minPrice, maxPrice, minStock, maxStock, pageable));
+        }
+
+        @GetMapping("/price-histogram")
+        @Operation(summary = "Price histogram of active products", description = "Min/max price and log-scaled price bucket counts of active products for the category (including subcategories) and keyword, for price-range sliders")
+        public ResponseEntity<PriceHistogramDTO> getPriceHistogram(
+                        @RequestParam(required = false) String keyword,
+                        @RequestParam(required = false) Long categoryId) {
+                try {
+                        return ResponseEntity.ok(productService.getPriceHistogram(keyword, categoryId));
+                } catch (IllegalStateException e) {
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+                }
+        }
+
+        @GetMapping("/active/cursor")
+        @Operation(summary = "Get active products by cursor", description = "Keyset-paginated active products without a total count. Pass nextCursor from the previous response to fetch the next page. Sort by id, price or createdAt")
+        public ResponseEntity<CursorPageResponseDTO<ProductResponseDTO>> getActiveProductsByCursor(
+                        @RequestParam(required = false) String keyword,
+                        @RequestParam(required = false) Long categoryId,
+                        @RequestParam(required = false) BigDecimal minPrice,
+                        @RequestParam(required = false) BigDecimal maxPrice,
+                        @RequestParam(required = false) Integer minStock,
+                        @RequestParam(required = false) Integer maxStock,
+                        @RequestParam(required = false) String cursor,
+                        @RequestParam(defaultValue = "10") int size,
+                        @RequestParam(defaultValue = "id") String sortField,
+                        @RequestParam(defaultValue = "asc") String sortDirection) {
+
+                if (size <= 0) {
+                        size = 10;
+                }
+                Sort.Direction direction = sortDirection.equalsIgnoreCase("asc") ? Sort.Direction.ASC
+                                : Sort.Direction.DESC;
+
+                try {
+                        return ResponseEntity.ok(productService.getActiveProductsAfter(
+                                        keyword, categoryId, minPrice, maxPrice, minStock, maxStock,
+                                        sortField, direction, cursor, size));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+        }
+
         @PostMapping
         @Operation(summary = "Create a new product", description = "Create a new product that will be in PENDING status until approved by an admin")
         public ResponseEntity<ProductResponseDTO> createProduct(
@@ -101,35 +211,37 @@ public class ProductController {
 
                 try {
                         // Convert JSON string to ProductCreateRequestDTO
-                        ObjectMapper objectMapper = new ObjectMapper();
-                        objectMapper.registerModule(new JavaTimeModule()); // For proper date/time handling
                         ProductCreateRequestDTO productCreateRequestDTO = objectMapper.readValue(requestDTO,
                                         ProductCreateRequestDTO.class);
 
-                        // Create the product with primary image
-                        ProductResponseDTO response = productService.createProduct(productCreateRequestDTO,
-                                        currentUser.getId(), primaryImage);
-
-                        // If additional images were provided, upload them
-                        if (additionalImages != null && additionalImages.length > 0) {
-                                for (int i = 0; i < additionalImages.length; i++) {
-                                        MultipartFile file = additionalImages[i];
+                        // Primary image first, then the additional ones
+                        boolean hasPrimaryImage = primaryImage != null && !primaryImage.isEmpty();
+                        List<MultipartFile> uploads = new ArrayList<>();
+                        if (hasPrimaryImage) {
+                                uploads.add(primaryImage);
+                        }
+                        if (additionalImages != null) {
+                                for (MultipartFile file : additionalImages) {
                                         if (!file.isEmpty()) {
-                                                // Save file to storage
-                                                String filename = productImageStorageService.save(file);
-                                                String url = productImageStorageService.getImageUrl(filename);
-
-                                                // Add as product image (not primary)
-                                                productImageService.addProductImage(response.getId(), filename, url,
-                                                                false);
+                                                uploads.add(file);
                                         }
                                 }
+                        }
+
+                        // Write all images to disk in parallel before touching the database
+                        List<String> filenames = productImageStorageService.saveAll(uploads);
 
+                        // Product and image rows commit together; the files are removed if they roll back
+                        ProductResponseDTO response = productImageService.createProductWithImages(
+                                        productCreateRequestDTO, currentUser.getId(), filenames, hasPrimaryImage);
+                        if (filenames.size() > (hasPrimaryImage ? 1 : 0)) {
                                 // Refresh product data to include the new images
                                 response = productService.getProductById(response.getId());
                         }
 
                         return new ResponseEntity<>(response, HttpStatus.CREATED);
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
                 } catch (Exception e) {
                         throw new RuntimeException("Error creating product: " + e.getMessage(), e);
                 }
@@ -145,6 +257,29 @@ public class ProductController {
                 return new ResponseEntity<>(response, HttpStatus.CREATED);
         }
 
+        @PostMapping("/import")
+        @Operation(summary = "Bulk import products", description = "Upload a CSV (header: categoryId,name,description,price,stockQuantity[,imageUrl]) or NDJSON file of ProductCreateRequestDTO rows. Rows are imported as PENDING products in the background; poll the returned job for progress")
+        public ResponseEntity<ProductImportJobDTO> importProducts(
+                        @RequestParam("file") MultipartFile file,
+                        @AuthenticationPrincipal User currentUser) throws IOException {
+                try {
+                        return new ResponseEntity<>(productImportService.startImport(file, currentUser.getId()),
+                                        HttpStatus.ACCEPTED);
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                } catch (IllegalStateException e) {
+                        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
+                }
+        }
+
+        @GetMapping("/import/{jobId}")
+        @Operation(summary = "Bulk import progress", description = "Progress and rejected rows of an import job started by the current user")
+        public ResponseEntity<ProductImportJobDTO> getImportJob(
+                        @PathVariable String jobId,
+                        @AuthenticationPrincipal User currentUser) {
+                return ResponseEntity.ok(productImportService.getJob(jobId, currentUser.getId()));
+        }
+
         @GetMapping("/{id}")
         @Operation(summary = "Get product by ID", description = "Retrieve a product by its ID")
         public ResponseEntity<ProductResponseDTO> getProductById(@PathVariable Long id) {
@@ -283,6 +418,51 @@ public class ProductController {
                 return ResponseEntity.ok(productService.deactivateProduct(id, currentUser.getId()));
         }
 
+        @PostMapping("/bulk/approve")
+        @PreAuthorize("hasAuthority('ADMIN')")
+        @Operation(summary = "Approve products in bulk", description = "Approve the given pending product IDs, or every pending product matching the filter when no IDs are given (admin only)")
+        public ResponseEntity<BulkModerationResultDTO> approveProducts(
+                        @RequestBody BulkModerationRequestDTO request,
+                        @AuthenticationPrincipal User currentUser) {
+                return ResponseEntity.ok(productService.approveProducts(request, currentUser.getId()));
+        }
+
+        @PostMapping("/bulk/deactivate")
+        @PreAuthorize("hasAuthority('ADMIN')")
+        @Operation(summary = "Deactivate products in bulk", description = "Deactivate the given product IDs, or every pending product matching the filter when no IDs are given (admin only)")
+        public ResponseEntity<BulkModerationResultDTO> deactivateProducts(
+                        @RequestBody BulkModerationRequestDTO request,
+                        @AuthenticationPrincipal User currentUser) {
+                return ResponseEntity.ok(productService.deactivateProducts(request, currentUser.getId()));
+        }
+
+        @PostMapping("/{id}/flash-sale")
+        @PreAuthorize("hasAuthority('ADMIN')")
+        @Operation(summary = "Start flash sale", description = "Split the product's stock into shard rows so concurrent checkouts do not queue on one row (admin only)")
+        public ResponseEntity<ProductResponseDTO> startFlashSale(
+                        @PathVariable Long id,
+                        @RequestParam(defaultValue = "8") int shards,
+                        @AuthenticationPrincipal User currentUser) {
+                try {
+                        return ResponseEntity.ok(productService.startFlashSale(id, shards, currentUser.getId()));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+        }
+
+        @DeleteMapping("/{id}/flash-sale")
+        @PreAuthorize("hasAuthority('ADMIN')")
+        @Operation(summary = "End flash sale", description = "Fold the product's shard rows back into its stock (admin only)")
+        public ResponseEntity<ProductResponseDTO> endFlashSale(
+                        @PathVariable Long id,
+                        @AuthenticationPrincipal User currentUser) {
+                try {
+                        return ResponseEntity.ok(productService.endFlashSale(id, currentUser.getId()));
+                } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().build();
+                }
+        }
+
         @GetMapping("/pending")
         @PreAuthorize("hasAuthority('ADMIN')")
         @Operation(summary = "Get pending products", description = "Get all products that are pending approval with filtering, pagination and sorting (admin only)")
@@ -306,6 +486,28 @@ public class ProductController {
                                 keyword, categoryId, minPrice, maxPrice, minStock, maxStock, pageable));
         }
 
+        @PostMapping("/stats/reconcile")
+        @PreAuthorize("hasAuthority('ADMIN')")
+        @Operation(summary = "Reconcile product stats", description = "Recompute the rating and favorite counters of all products from reviews and favorites (admin only)")
+        public ResponseEntity<Map<String, Integer>> reconcileProductStats() {
+                return ResponseEntity.ok(Map.of("updatedProducts", productStatsService.reconcileAll()));
+        }
+
+        @GetMapping("/cache/stats")
+        @PreAuthorize("hasAuthority('ADMIN')")
+        @Operation(summary = "Product detail cache stats", description = "Hit, miss, eviction and size counters of the product detail cache (admin only)")
+        public ResponseEntity<CacheStatsDTO> getProductDetailCacheStats() {
+                return ResponseEntity.ok(productDetailCache.stats());
+        }
+
+        @GetMapping("/{id}/also-bought")
+        @Operation(summary = "Customers also bought", description = "Active products most often bought together with this product in delivered orders")
+        public ResponseEntity<List<ProductResponseDTO>> getAlsoBoughtProducts(
+                        @PathVariable Long id,
+                        @RequestParam(defaultValue = "10") int limit) {
+                return ResponseEntity.ok(productService.getAlsoBoughtProducts(id, Math.max(limit, 1)));
+        }
+
         @GetMapping("/related/{productId}")
         @Operation(summary = "Get related products", description = "Retrieve products related to a specific product")
         public ResponseEntity<Page<ProductResponseDTO>> getRelatedProducts(
@@ -14,6 +14,7 @@ import com.chuyendeweb2.group05.dto.ReviewDTO;
 import com.chuyendeweb2.group05.dto.ReviewReplyDTO;
 import com.chuyendeweb2.group05.dto.ReviewReplyRequest;
 import com.chuyendeweb2.group05.dto.ReviewRequest;
+import com.chuyendeweb2.group05.dto.SliceResponseDTO;
 import com.chuyendeweb2.group05.entity.meta.User;
 import com.chuyendeweb2.group05.service.ReviewReplyService;
 import com.chuyendeweb2.group05.service.ReviewService;
@@ -123,6 +124,33 @@ public class ReviewController {
         return ResponseEntity.ok(reviewService.getVerifiedProductReviews(productId, pageable));
     }
 
+    /**
+     * Lấy danh sách đánh giá của một sản phẩm, không kèm tổng số (cuộn vô hạn)
+     * 
+     * @param productId ID của sản phẩm
+     * @param pageable  Thông tin phân trang
+     * @return SliceResponseDTO<ReviewDTO> danh sách đánh giá và cờ hasNext
+     */
+    @GetMapping("/product/{productId}/slice")
+    public ResponseEntity<SliceResponseDTO<ReviewDTO>> getProductReviewsSlice(@PathVariable Long productId,
+            Pageable pageable) {
+        return ResponseEntity.ok(SliceResponseDTO.of(reviewService.getProductReviewsSlice(productId, pageable)));
+    }
+
+    /**
+     * Lấy danh sách đánh giá đã xác minh của một sản phẩm, không kèm tổng số
+     * 
+     * @param productId ID của sản phẩm
+     * @param pageable  Thông tin phân trang
+     * @return SliceResponseDTO<ReviewDTO> danh sách đánh giá đã xác minh và cờ hasNext
+     */
+    @GetMapping("/product/{productId}/verified/slice")
+    public ResponseEntity<SliceResponseDTO<ReviewDTO>> getVerifiedProductReviewsSlice(@PathVariable Long productId,
+            Pageable pageable) {
+        return ResponseEntity.ok(SliceResponseDTO.of(
+                reviewService.getVerifiedProductReviewsSlice(productId, pageable)));
+    }
+
     /**
      * Lấy danh sách đánh giá của người dùng hiện tại
      * 
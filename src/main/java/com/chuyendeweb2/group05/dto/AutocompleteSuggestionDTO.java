@@ -0,0 +1,16 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AutocompleteSuggestionDTO {
+    private String text;
+    private String type; // PRODUCT or CATEGORY
+    private Long id;
+}
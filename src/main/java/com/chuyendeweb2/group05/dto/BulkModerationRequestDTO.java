@@ -0,0 +1,28 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Products to approve or deactivate in bulk: either explicit IDs or, when
+ * {@code productIds} is empty, every PENDING product matching the same
+ * filter as the pending products listing.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkModerationRequestDTO {
+    private List<Long> productIds;
+    private String keyword;
+    private Long categoryId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Integer minStock;
+    private Integer maxStock;
+}
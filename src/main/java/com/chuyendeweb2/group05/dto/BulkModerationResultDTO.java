@@ -0,0 +1,18 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkModerationResultDTO {
+    // Products selected by the IDs or filter
+    private long matched;
+    // Products whose status actually changed
+    private long updated;
+    private int batches;
+}
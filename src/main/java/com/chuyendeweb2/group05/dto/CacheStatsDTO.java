@@ -0,0 +1,23 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheStatsDTO {
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long loads;
+    private long evictions;
+    private long expirations;
+    private long invalidations;
+    private int entries;
+    private long weightBytes;
+    private long maxWeightBytes;
+}
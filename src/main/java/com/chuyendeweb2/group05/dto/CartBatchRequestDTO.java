@@ -0,0 +1,17 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartBatchRequestDTO {
+    // Applied in order; several operations on one product combine
+    private List<CartOperationDTO> operations;
+}
@@ -0,0 +1,19 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import com.chuyendeweb2.group05.enums.CartOperationType;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartOperationDTO {
+    // ADD adds quantity units, UPDATE sets the quantity (0 removes), REMOVE ignores quantity
+    private CartOperationType type;
+    private Long productId;
+    private Integer quantity;
+}
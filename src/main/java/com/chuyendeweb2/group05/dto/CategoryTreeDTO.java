@@ -0,0 +1,17 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * The active category tree, with a version that changes whenever the tree's
+ * content does (used as its ETag).
+ */
+@Getter
+@Builder
+public class CategoryTreeDTO {
+    private final String version;
+    private final List<CategoryTreeNodeDTO> roots;
+}
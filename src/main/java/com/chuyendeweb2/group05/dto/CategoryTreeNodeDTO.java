@@ -0,0 +1,14 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@Builder
+public class CategoryTreeNodeDTO {
+    private final Long id;
+    private final String name;
+    private final List<CategoryTreeNodeDTO> children;
+}
@@ -0,0 +1,16 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FacetedProductPageDTO {
+    private Page<ProductResponseDTO> results;
+    private ProductFacetsDTO facets; // null while the facet index is still loading
+}
@@ -0,0 +1,19 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryHoldDTO {
+    // Product ID -> units held for the checkout
+    private Map<Long, Integer> quantities;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,18 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucketCountDTO {
+    private BigDecimal from; // inclusive, null for the first bucket
+    private BigDecimal to; // exclusive, null for the last bucket
+    private int count;
+}
@@ -0,0 +1,21 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceHistogramDTO {
+    private int total;
+    private BigDecimal minPrice; // null when nothing matches
+    private BigDecimal maxPrice;
+    // Log-scaled buckets from the one holding minPrice to the one holding maxPrice
+    private List<PriceBucketCountDTO> buckets;
+}
@@ -0,0 +1,21 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFacetsDTO {
+    private int total;
+    private Map<Long, Integer> categories; // categoryId -> count
+    private List<PriceBucketCountDTO> priceBuckets;
+    private int inStock;
+    private int outOfStock;
+}
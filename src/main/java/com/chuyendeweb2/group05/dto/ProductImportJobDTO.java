@@ -0,0 +1,32 @@
+package com.chuyendeweb2.group05.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportJobDTO {
+    private String jobId;
+    // QUEUED, RUNNING, COMPLETED or FAILED
+    private String status;
+    private String format;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    // First rejected rows only; failedRows has the full count
+    private List<ProductImportErrorDTO> errors;
+    private String failureMessage;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime finishedAt;
+}
@@ -31,6 +31,7 @@ public class Cart {
     private User user;
 
     @Column(nullable = false)
+    @Builder.Default
     private BigDecimal totalAmount = BigDecimal.ZERO; // 🛠 Đảm bảo giá trị mặc định
 
     @CreatedDate
@@ -41,7 +42,9 @@ public class Cart {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
-    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+    // Lazy: CartRepository.findWithItemsByUserId loads the lines and their products in one query
+    @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Builder.Default
     private List<CartItem> cartItems = new ArrayList<>();
 
     public List<CartItem> getCartItems() {
@@ -53,6 +56,7 @@ public class Cart {
         calculateTotalAmount();
     }
 
+    // Lines store no price, so the total is always summed at the products' current prices
     public void calculateTotalAmount() {
         this.totalAmount = Optional.ofNullable(cartItems)
                 .orElse(new ArrayList<>())
@@ -46,6 +46,12 @@ public class Category {
     @Column(nullable = false)
     @ColumnDefault("true")
     private Boolean isActive;
+
+    // Nested-set bounds: descendants have lft within (lft, rgt). Maintained by CategoryService
+    @JsonIgnore
+    private Integer lft;
+    @JsonIgnore
+    private Integer rgt;
     @OneToMany(mappedBy = "parentCategory")
     private List<Category> subCategories;
 
@@ -60,6 +66,15 @@ public class Category {
         this.parentCategory = parentCategory;
     }
 
+    public void placeInTree(int lft, int rgt) {
+        this.lft = lft;
+        this.rgt = rgt;
+    }
+
+    public boolean isInSubtreeOf(Category ancestor) {
+        return lft != null && ancestor.lft != null && lft >= ancestor.lft && lft <= ancestor.rgt;
+    }
+
     public void deactivate() {
         this.isActive = false;
     }
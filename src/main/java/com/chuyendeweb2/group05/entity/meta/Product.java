@@ -2,10 +2,12 @@ package com.chuyendeweb2.group05.entity.meta;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import com.chuyendeweb2.group05.dto.ProductUpdateRequestDTO;
 import com.chuyendeweb2.group05.enums.ProductStatus;
+import com.chuyendeweb2.group05.search.VietnameseAnalyzer;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 import java.math.BigDecimal;
@@ -27,11 +29,11 @@ public class Product {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id", nullable = false)
     private Category category;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User seller;
 
@@ -41,6 +43,10 @@ public class Product {
     @Column(nullable = false, length = 1000)
     private String description;
 
+    // Name and description folded by VietnameseAnalyzer, for accent-insensitive LIKE matching
+    @Column(name = "search_text", length = 1300)
+    private String searchText;
+
     @Column(nullable = false)
     private BigDecimal price;
 
@@ -65,10 +71,53 @@ public class Product {
     @Column(name = "approved_at")
     private LocalDateTime approvedAt;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "approved_by")
     private User approvedBy;
 
+    // Denormalized review/favorite aggregates. Only written by set-based
+    // updates (ProductRepository), never by entity flushes, so concurrent
+    // product edits cannot overwrite them with stale values.
+    @Column(name = "rating_sum", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private long ratingSum = 0;
+
+    @Column(name = "rating_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int ratingCount = 0;
+
+    @Column(name = "rating_one_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int ratingOneCount = 0;
+
+    @Column(name = "rating_two_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int ratingTwoCount = 0;
+
+    @Column(name = "rating_three_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int ratingThreeCount = 0;
+
+    @Column(name = "rating_four_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int ratingFourCount = 0;
+
+    @Column(name = "rating_five_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int ratingFiveCount = 0;
+
+    @Column(name = "favorite_count", nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @Builder.Default
+    private int favoriteCount = 0;
+
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
     private List<ProductImage> images = new ArrayList<>();
@@ -89,28 +138,22 @@ public class Product {
     @Builder.Default
     private List<Favorite> favorites = new ArrayList<>();
 
-    // Calculate average rating
+    // Average rating from the denormalized counters
     @Transient
     public Double getAverageRating() {
-        if (reviews.isEmpty()) {
+        if (ratingCount == 0) {
             return 0.0;
         }
-        return reviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
+        return (double) ratingSum / ratingCount;
     }
 
-    // Calculate review count
     @Transient
     public Integer getReviewCount() {
-        return reviews.size();
+        return ratingCount;
     }
 
-    // Calculate favorite count
-    @Transient
     public Integer getFavoriteCount() {
-        return favorites.size();
+        return favoriteCount;
     }
 
     // Get primary image URL (backward compatibility)
@@ -160,12 +203,18 @@ public class Product {
     public void prePersist() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
+        this.searchText = searchTextOf(name, description);
     }
 
     // Pre-update lifecycle callback
     @PreUpdate
     public void preUpdate() {
         this.updatedAt = LocalDateTime.now();
+        this.searchText = searchTextOf(name, description);
+    }
+
+    public static String searchTextOf(String name, String description) {
+        return VietnameseAnalyzer.analyze(name + " " + description);
     }
 
     public void addImage(ProductImage image) {
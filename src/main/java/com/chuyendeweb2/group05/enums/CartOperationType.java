@@ -0,0 +1,7 @@
+package com.chuyendeweb2.group05.enums;
+
+public enum CartOperationType {
+    ADD,
+    UPDATE,
+    REMOVE
+}
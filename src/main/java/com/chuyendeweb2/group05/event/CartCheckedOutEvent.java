@@ -0,0 +1,17 @@
+package com.chuyendeweb2.group05.event;
+
+import lombok.Getter;
+
+/**
+ * Published when an order is created from a user's cart, which empties the
+ * cart in the database.
+ */
+@Getter
+public class CartCheckedOutEvent {
+
+    private final Integer userId;
+
+    public CartCheckedOutEvent(Integer userId) {
+        this.userId = userId;
+    }
+}
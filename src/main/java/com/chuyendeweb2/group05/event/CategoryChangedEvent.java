@@ -0,0 +1,17 @@
+package com.chuyendeweb2.group05.event;
+
+import lombok.Getter;
+
+/**
+ * Published by {@code CategoryService} when a category is created, renamed,
+ * moved, activated, deactivated or deleted.
+ */
+@Getter
+public class CategoryChangedEvent {
+
+    private final Long categoryId;
+
+    public CategoryChangedEvent(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+}
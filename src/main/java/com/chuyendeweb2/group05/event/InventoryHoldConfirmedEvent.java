@@ -0,0 +1,22 @@
+package com.chuyendeweb2.group05.event;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Published when an order is created from a user's cart. After commit the
+ * user's checkout hold is released and the ordered quantities (product ID ->
+ * units) are taken out of the ledger's stock.
+ */
+@Getter
+public class InventoryHoldConfirmedEvent {
+
+    private final Integer userId;
+    private final Map<Long, Integer> quantities;
+
+    public InventoryHoldConfirmedEvent(Integer userId, Map<Long, Integer> quantities) {
+        this.userId = userId;
+        this.quantities = Map.copyOf(quantities);
+    }
+}
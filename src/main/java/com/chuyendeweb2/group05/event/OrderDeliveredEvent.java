@@ -0,0 +1,22 @@
+package com.chuyendeweb2.group05.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published when an order moves to DELIVERED. Carries the IDs of the products
+ * in the order so listeners do not have to reload it.
+ */
+@Getter
+public class OrderDeliveredEvent {
+
+    private final Long orderId;
+    private final Collection<Long> productIds;
+
+    public OrderDeliveredEvent(Long orderId, Collection<Long> productIds) {
+        this.orderId = orderId;
+        this.productIds = List.copyOf(productIds);
+    }
+}
@@ -0,0 +1,25 @@
+package com.chuyendeweb2.group05.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by the product services whenever one or more products are
+ * created, updated, moderated or deleted. Listeners reload the current state
+ * of the products after the surrounding transaction commits.
+ */
+@Getter
+public class ProductChangedEvent {
+
+    private final Collection<Long> productIds;
+
+    public ProductChangedEvent(Collection<Long> productIds) {
+        this.productIds = List.copyOf(productIds);
+    }
+
+    public static ProductChangedEvent of(Long productId) {
+        return new ProductChangedEvent(List.of(productId));
+    }
+}
@@ -0,0 +1,18 @@
+package com.chuyendeweb2.group05.event;
+
+import lombok.Getter;
+
+/**
+ * Published when something shown on a product detail page changes without
+ * changing the product row's catalog fields: images, reviews or favorites.
+ * Cheaper than {@link ProductChangedEvent}, which also reindexes the product.
+ */
+@Getter
+public class ProductDetailInvalidatedEvent {
+
+    private final Long productId;
+
+    public ProductDetailInvalidatedEvent(Long productId) {
+        this.productId = productId;
+    }
+}
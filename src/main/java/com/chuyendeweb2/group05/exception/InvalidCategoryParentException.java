@@ -0,0 +1,10 @@
+package com.chuyendeweb2.group05.exception;
+
+import org.springframework.http.HttpStatus;
+
+public class InvalidCategoryParentException extends BaseException {
+    public InvalidCategoryParentException() {
+        super("Không thể chuyển danh mục vào chính nó hoặc danh mục con của nó.", HttpStatus.BAD_REQUEST,
+                "INVALID_CATEGORY_PARENT");
+    }
+}
@@ -0,0 +1,34 @@
+package com.chuyendeweb2.group05.inventory;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.chuyendeweb2.group05.event.ProductChangedEvent;
+import com.chuyendeweb2.group05.repo.ProductRepository;
+
+import java.util.List;
+
+/**
+ * Checkouts of products in flash-sale mode only decrement their shard rows.
+ * This folds the shard sums into {@code products.stock_quantity} every few
+ * seconds, so product pages, the catalog indexes and the reservation ledger
+ * see the stock with one write per product per interval instead of one per
+ * checkout.
+ */
+@Component
+@RequiredArgsConstructor
+public class FlashSaleStockSync {
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Scheduled(fixedDelayString = "${product.flash-sale.sync-delay-ms:2000}")
+    public void syncStock() {
+        List<Long> changed = productRepository.syncFlashSaleStock();
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(changed));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.chuyendeweb2.group05.inventory;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Units of stock set aside for one user's checkout until a deadline. Immutable;
+ * changing a hold replaces it.
+ */
+@Getter
+public class InventoryHold {
+
+    private final Integer userId;
+    // Product ID -> units, in ascending product ID order
+    private final SortedMap<Long, Integer> quantities;
+    private final long deadlineMillis;
+
+    InventoryHold(Integer userId, Map<Long, Integer> quantities, long deadlineMillis) {
+        this.userId = userId;
+        this.quantities = Collections.unmodifiableSortedMap(new TreeMap<>(quantities));
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(deadlineMillis), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,75 @@
+package com.chuyendeweb2.group05.inventory;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Durable copy of the live holds, one row per user with the lines packed as
+ * {@code productId:units,...}, so the ledger can be rebuilt after a restart.
+ * Only written when a hold changes; the ledger never reads it after startup.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryHoldStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void save(InventoryHold hold) {
+        jdbcTemplate.update("""
+                insert into inventory_holds (user_id, quantities, expires_at) values (?, ?, ?)
+                on duplicate key update quantities = values(quantities), expires_at = values(expires_at)
+                """, hold.getUserId(), encode(hold.getQuantities()), new Timestamp(hold.getDeadlineMillis()));
+    }
+
+    /**
+     * Deletes the rows of the given holds. A row the user has since replaced
+     * with a newer hold is left alone.
+     */
+    public void deleteAll(Collection<InventoryHold> holds) {
+        if (holds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("delete from inventory_holds where user_id = ? and expires_at = ?",
+                List.copyOf(holds), holds.size(), (ps, hold) -> {
+                    ps.setInt(1, hold.getUserId());
+                    ps.setTimestamp(2, new Timestamp(hold.getDeadlineMillis()));
+                });
+    }
+
+    /**
+     * Drops the rows that expired while the application was down and returns
+     * the others.
+     */
+    public List<InventoryHold> loadUnexpired(long nowMillis) {
+        Timestamp now = new Timestamp(nowMillis);
+        jdbcTemplate.update("delete from inventory_holds where expires_at <= ?", now);
+        return jdbcTemplate.query("select user_id, quantities, expires_at from inventory_holds",
+                (rs, rowNum) -> new InventoryHold(rs.getInt("user_id"), decode(rs.getString("quantities")),
+                        rs.getTimestamp("expires_at").getTime()));
+    }
+
+    private static String encode(Map<Long, Integer> quantities) {
+        StringJoiner joiner = new StringJoiner(",");
+        quantities.forEach((productId, units) -> joiner.add(productId + ":" + units));
+        return joiner.toString();
+    }
+
+    private static Map<Long, Integer> decode(String packed) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (String line : packed.split(",")) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                quantities.put(Long.parseLong(line.substring(0, colon)), Integer.parseInt(line.substring(colon + 1)));
+            }
+        }
+        return quantities;
+    }
+}
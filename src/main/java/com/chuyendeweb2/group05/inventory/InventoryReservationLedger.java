@@ -0,0 +1,339 @@
+package com.chuyendeweb2.group05.inventory;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chuyendeweb2.group05.event.InventoryHoldConfirmedEvent;
+import com.chuyendeweb2.group05.search.ProductCatalogListener;
+import com.chuyendeweb2.group05.search.ProductDocument;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory ledger of the stock set aside by checkouts in progress, so that
+ * units in one shopper's checkout cannot be taken by another before the
+ * order is placed.
+ * <p>
+ * Each ACTIVE product has a counter of its stock (mirrored from the catalog)
+ * and of the units held. Counters are guarded by a fixed set of striped locks,
+ * so reservations of different products rarely contend and no check reads
+ * the database. Each user has at most one hold: created or replaced when
+ * checkout starts, settled after the order commits, released on request
+ * or by a timer wheel once its TTL passes. Holds are also written to
+ * {@link InventoryHoldStore} and restored from it on startup.
+ * <p>
+ * The conditional stock decrement at checkout stays the final guard; the
+ * ledger is per instance and only decides who gets the units first.
+ */
+@Component
+@Slf4j
+public class InventoryReservationLedger implements ProductCatalogListener {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final InventoryHoldStore store;
+    private final long ttlMillis;
+    private final TimerWheel<InventoryHold> wheel;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    // Guarded by the stripe of the product ID
+    private final Map<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final Map<Integer, InventoryHold> holds = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public InventoryReservationLedger(
+            InventoryHoldStore store,
+            @Value("${product.reservation.hold-ttl:10m}") Duration holdTtl,
+            @Value("${product.reservation.tick-ms:1000}") long tickMillis,
+            @Value("${product.reservation.wheel-slots:1024}") int wheelSlots) {
+        this.store = store;
+        this.ttlMillis = holdTtl.toMillis();
+        this.wheel = new TimerWheel<>(tickMillis, wheelSlots, System.currentTimeMillis());
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @Override
+    public void onProductUpserted(ProductDocument document) {
+        int stock = document.getStockQuantity() != null ? document.getStockQuantity() : 0;
+        synchronized (lockFor(document.getId())) {
+            StockCounter counter = counters.computeIfAbsent(document.getId(), id -> new StockCounter());
+            counter.stock = stock;
+            counter.listed = true;
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        synchronized (lockFor(productId)) {
+            StockCounter counter = counters.get(productId);
+            if (counter != null) {
+                counter.stock = 0;
+                counter.listed = false;
+                dropIfUnused(productId, counter);
+            }
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded() {
+        // Stock is known now; put back the holds that were live at shutdown
+        List<InventoryHold> restored = store.loadUnexpired(System.currentTimeMillis());
+        for (InventoryHold hold : restored) {
+            holds.put(hold.getUserId(), hold);
+            hold.getQuantities().forEach(this::forceTake);
+            wheel.schedule(hold, hold.getDeadlineMillis());
+        }
+        ready = true;
+        log.info("Restored {} inventory holds", restored.size());
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Units of the product the user can still add: its stock minus what other
+     * users hold. Zero for products that are not ACTIVE.
+     */
+    public int available(Long productId, Integer userId) {
+        InventoryHold own = holds.get(userId);
+        int ownUnits = own != null ? own.getQuantities().getOrDefault(productId, 0) : 0;
+        synchronized (lockFor(productId)) {
+            StockCounter counter = counters.get(productId);
+            return counter == null ? 0 : Math.max(0, counter.stock - counter.reserved + ownUnits);
+        }
+    }
+
+    public Optional<InventoryHold> findHold(Integer userId) {
+        return Optional.ofNullable(holds.get(userId));
+    }
+
+    /**
+     * Holds {@code quantities} (product ID -> units) for the user for the
+     * configured TTL, replacing the user's previous hold. Units the user
+     * already holds are not checked again. Returns the IDs of the products
+     * that are short, in which case the previous hold is left as it was.
+     */
+    public List<Long> reserve(Integer userId, Map<Long, Integer> quantities) {
+        if (!ready) {
+            throw new IllegalStateException("Inventory reservations are still loading");
+        }
+        InventoryHold hold = new InventoryHold(userId, quantities, System.currentTimeMillis() + ttlMillis);
+        // The counters are moved outside the map, then the hold is swapped in only if
+        // the previous one is still current; otherwise the move is undone and retried
+        while (true) {
+            InventoryHold previous = holds.get(userId);
+            Map<Long, Integer> held = previous != null ? previous.getQuantities() : Map.of();
+            List<Long> shortages = takeDifference(held, hold.getQuantities());
+            if (!shortages.isEmpty()) {
+                return shortages;
+            }
+            boolean swapped = previous != null
+                    ? holds.replace(userId, previous, hold)
+                    : holds.putIfAbsent(userId, hold) == null;
+            if (swapped) {
+                break;
+            }
+            undoDifference(held, hold.getQuantities());
+        }
+
+        try {
+            store.save(hold);
+        } catch (RuntimeException e) {
+            drop(hold);
+            throw e;
+        }
+        wheel.schedule(hold, hold.getDeadlineMillis());
+        return List.of();
+    }
+
+    /**
+     * Products of {@code quantities} (product ID -> units) the user cannot
+     * order: units beyond the user's own hold that are not free. Changes
+     * nothing, so a rolled-back order leaves the ledger as it was; empty while
+     * the ledger loads.
+     */
+    public List<Long> findShortages(Integer userId, Map<Long, Integer> quantities) {
+        if (!ready) {
+            return List.of();
+        }
+        InventoryHold own = holds.get(userId);
+        Map<Long, Integer> held = own != null ? own.getQuantities() : Map.of();
+        List<Long> shortages = new ArrayList<>();
+        new TreeMap<>(quantities).forEach((productId, units) -> {
+            int extra = units - held.getOrDefault(productId, 0);
+            if (extra > 0) {
+                synchronized (lockFor(productId)) {
+                    StockCounter counter = counters.get(productId);
+                    if (counter == null || counter.stock - counter.reserved < extra) {
+                        shortages.add(productId);
+                    }
+                }
+            }
+        });
+        return shortages;
+    }
+
+    /**
+     * Gives the user's held units back, e.g. when the checkout is abandoned.
+     */
+    public void release(Integer userId) {
+        InventoryHold hold = holds.get(userId);
+        if (hold != null && drop(hold)) {
+            store.deleteAll(List.of(hold));
+        }
+    }
+
+    // Runs after the order commits, before the catalog dispatcher reloads the
+    // same products (listeners of one transaction run in publishing order); a
+    // rolled-back order never gets here, so the ledger only changes for placed orders
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHoldConfirmed(InventoryHoldConfirmedEvent event) {
+        InventoryHold hold = holds.remove(event.getUserId());
+        Map<Long, Integer> held = hold != null ? hold.getQuantities() : Map.of();
+        Map<Long, Integer> ordered = event.getQuantities();
+        Set<Long> productIds = new TreeSet<>(held.keySet());
+        productIds.addAll(ordered.keySet());
+        for (Long productId : productIds) {
+            synchronized (lockFor(productId)) {
+                StockCounter counter = counters.get(productId);
+                if (counter != null) {
+                    counter.reserved -= held.getOrDefault(productId, 0);
+                    counter.stock = Math.max(0, counter.stock - ordered.getOrDefault(productId, 0));
+                    dropIfUnused(productId, counter);
+                }
+            }
+        }
+        if (hold != null) {
+            store.deleteAll(List.of(hold));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${product.reservation.tick-ms:1000}")
+    public void expireHolds() {
+        if (!ready) {
+            return;
+        }
+        List<InventoryHold> expired = new ArrayList<>();
+        for (InventoryHold hold : wheel.advance(System.currentTimeMillis())) {
+            if (drop(hold)) {
+                expired.add(hold);
+            }
+        }
+        if (!expired.isEmpty()) {
+            store.deleteAll(expired);
+            log.debug("Expired {} inventory holds", expired.size());
+        }
+    }
+
+    // False when the hold was confirmed, released or replaced in the meantime
+    private boolean drop(InventoryHold hold) {
+        if (!holds.remove(hold.getUserId(), hold)) {
+            return false;
+        }
+        hold.getQuantities().forEach(this::give);
+        return true;
+    }
+
+    /**
+     * Moves the held units of a user from {@code held} to {@code wanted}:
+     * increases are taken first, in ascending product ID order, and undone
+     * if any product is short; decreases are given back only after that.
+     */
+    private List<Long> takeDifference(Map<Long, Integer> held, Map<Long, Integer> wanted) {
+        List<Long> shortages = new ArrayList<>();
+        Map<Long, Integer> taken = new TreeMap<>();
+        wanted.forEach((productId, units) -> {
+            int extra = units - held.getOrDefault(productId, 0);
+            if (extra > 0) {
+                if (tryTake(productId, extra)) {
+                    taken.put(productId, extra);
+                } else {
+                    shortages.add(productId);
+                }
+            }
+        });
+        if (!shortages.isEmpty()) {
+            taken.forEach(this::give);
+            return shortages;
+        }
+        held.forEach((productId, units) -> {
+            int surplus = units - wanted.getOrDefault(productId, 0);
+            if (surplus > 0) {
+                give(productId, surplus);
+            }
+        });
+        return shortages;
+    }
+
+    // Reverses a successful takeDifference(held, wanted) whose hold was not stored
+    private void undoDifference(Map<Long, Integer> held, Map<Long, Integer> wanted) {
+        Map<Long, Integer> deltas = new TreeMap<>();
+        wanted.forEach((productId, units) -> deltas.merge(productId, units, Integer::sum));
+        held.forEach((productId, units) -> deltas.merge(productId, -units, Integer::sum));
+        deltas.forEach((productId, delta) -> {
+            if (delta > 0) {
+                give(productId, delta);
+            } else if (delta < 0) {
+                forceTake(productId, -delta);
+            }
+        });
+    }
+
+    private boolean tryTake(Long productId, int units) {
+        synchronized (lockFor(productId)) {
+            StockCounter counter = counters.get(productId);
+            if (counter == null || counter.stock - counter.reserved < units) {
+                return false;
+            }
+            counter.reserved += units;
+            return true;
+        }
+    }
+
+    // Restored holds were granted before the restart, so they are not checked again
+    private void forceTake(Long productId, int units) {
+        synchronized (lockFor(productId)) {
+            counters.computeIfAbsent(productId, id -> new StockCounter()).reserved += units;
+        }
+    }
+
+    private void give(Long productId, int units) {
+        synchronized (lockFor(productId)) {
+            StockCounter counter = counters.get(productId);
+            if (counter != null) {
+                counter.reserved -= units;
+                dropIfUnused(productId, counter);
+            }
+        }
+    }
+
+    private void dropIfUnused(Long productId, StockCounter counter) {
+        if (!counter.listed && counter.reserved <= 0) {
+            counters.remove(productId);
+        }
+    }
+
+    private Object lockFor(Long productId) {
+        return locks[Long.hashCode(productId) & (LOCK_STRIPES - 1)];
+    }
+
+    private static final class StockCounter {
+        private int stock;
+        private int reserved;
+        private boolean listed;
+    }
+}
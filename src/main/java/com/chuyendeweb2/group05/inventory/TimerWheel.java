@@ -0,0 +1,69 @@
+package com.chuyendeweb2.group05.inventory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel: a ring of slots, each covering one tick. Scheduling and
+ * expiring are O(1) per item however many items are pending. Deadlines more
+ * than one turn ahead stay in their slot until the turn they fall due.
+ * <p>
+ * Cancelled items are not removed; callers check on expiry whether an item is
+ * still current. Thread-safe.
+ */
+class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<Entry<T>>[] slots;
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    TimerWheel(long tickMillis, int slotCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new List[slotCount];
+        for (int i = 0; i < slotCount; i++) {
+            slots[i] = new ArrayList<>();
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    synchronized void schedule(T item, long deadlineMillis) {
+        // Round up so an item never expires before its deadline
+        long deadlineTick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, currentTick + 1);
+        slots[(int) (deadlineTick % slots.length)].add(new Entry<>(item, deadlineTick));
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and returns the items that fell due
+     * on the way.
+     */
+    synchronized List<T> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<T> expired = new ArrayList<>();
+        // After a long pause every slot is visited once rather than once per missed tick
+        long fromTick = Math.max(currentTick + 1, targetTick - slots.length + 1);
+        for (long tick = fromTick; tick <= targetTick; tick++) {
+            Iterator<Entry<T>> entries = slots[(int) (tick % slots.length)].iterator();
+            while (entries.hasNext()) {
+                Entry<T> entry = entries.next();
+                if (entry.deadlineTick <= targetTick) {
+                    expired.add(entry.item);
+                    entries.remove();
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long deadlineTick;
+
+        private Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
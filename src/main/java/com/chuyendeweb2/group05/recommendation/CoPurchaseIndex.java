@@ -0,0 +1,243 @@
+package com.chuyendeweb2.group05.recommendation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chuyendeweb2.group05.enums.OrderStatus;
+import com.chuyendeweb2.group05.event.OrderDeliveredEvent;
+import com.chuyendeweb2.group05.repo.OrderDetailRepository;
+import com.chuyendeweb2.group05.repo.OrderRepository;
+import com.chuyendeweb2.group05.util.LongIntHashMap;
+import com.chuyendeweb2.group05.util.ScoredIds;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * "Customers also bought" table built from DELIVERED orders. Counts how often
+ * each pair of products appears in the same order and scores pairs by cosine
+ * similarity: {@code co(a, b) / sqrt(orders(a) * orders(b))}.
+ * <p>
+ * The full build streams orders in keyset chunks. Memory stays bounded
+ * because each product keeps at most {@code max-pairs-per-product} partner
+ * counts, with the rarest pairs pruned first, and large orders only
+ * contribute their first {@link #MAX_BASKET_SIZE} products. Orders delivered
+ * after the build are applied incrementally.
+ */
+@Component
+@Slf4j
+public class CoPurchaseIndex {
+
+    private static final int MAX_BASKET_SIZE = 50;
+
+    private final OrderRepository orderRepository;
+    private final OrderDetailRepository orderDetailRepository;
+    private final int batchSize;
+    private final int topK;
+    private final int minSupport;
+    private final int maxPairsPerProduct;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Map<Long, ScoredIds> recommendations = new ConcurrentHashMap<>();
+
+    // Guarded by this
+    private Counts counts = new Counts();
+    // Guarded by this; only used while a rebuild is scanning
+    private long scannedUpTo;
+    private final List<OrderDeliveredEvent> missedByScan = new ArrayList<>();
+    private final List<OrderDeliveredEvent> aheadOfScan = new ArrayList<>();
+
+    public CoPurchaseIndex(
+            OrderRepository orderRepository,
+            OrderDetailRepository orderDetailRepository,
+            @Value("${product.also-bought.batch-size:1000}") int batchSize,
+            @Value("${product.also-bought.top-k:20}") int topK,
+            @Value("${product.also-bought.min-support:2}") int minSupport,
+            @Value("${product.also-bought.max-pairs-per-product:1000}") int maxPairsPerProduct) {
+        this.orderRepository = orderRepository;
+        this.orderDetailRepository = orderDetailRepository;
+        this.batchSize = batchSize;
+        this.topK = topK;
+        this.minSupport = minSupport;
+        this.maxPairsPerProduct = maxPairsPerProduct;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        CompletableFuture.runAsync(this::rebuild);
+    }
+
+    @Scheduled(cron = "${product.also-bought.rebuild-cron:0 0 4 * * *}")
+    public void scheduledRebuild() {
+        rebuild();
+    }
+
+    /**
+     * Returns up to {@code limit} IDs of products most often bought together
+     * with the given one, best first.
+     */
+    public List<Long> alsoBought(Long productId, int limit) {
+        ScoredIds scored = recommendations.get(productId);
+        if (scored == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(Math.min(limit, scored.size()));
+        for (int i = 0; i < scored.size() && i < limit; i++) {
+            ids.add(scored.idAt(i));
+        }
+        return ids;
+    }
+
+    /**
+     * Recounts every DELIVERED order. Orders delivered while the scan runs are
+     * reconciled against what the scan saw, so none is lost or counted twice.
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                scannedUpTo = 0;
+                missedByScan.clear();
+                aheadOfScan.clear();
+            }
+
+            Counts fresh = new Counts();
+            long afterId = 0;
+            int orders = 0;
+            List<Long> orderIds;
+            do {
+                orderIds = orderRepository.findIdsByStatusAfter(OrderStatus.DELIVERED, afterId,
+                        PageRequest.of(0, batchSize));
+                if (orderIds.isEmpty()) {
+                    break;
+                }
+                Map<Long, Set<Long>> baskets = new LinkedHashMap<>();
+                for (Object[] pair : orderDetailRepository.findOrderProductPairs(orderIds)) {
+                    baskets.computeIfAbsent((Long) pair[0], id -> new LinkedHashSet<>()).add((Long) pair[1]);
+                }
+                baskets.values().forEach(fresh::addBasket);
+                orders += orderIds.size();
+                afterId = orderIds.get(orderIds.size() - 1);
+                markScanned(new HashSet<>(orderIds), afterId);
+            } while (orderIds.size() == batchSize);
+
+            synchronized (this) {
+                // Whatever the scan has not reached was delivered after it finished
+                missedByScan.addAll(aheadOfScan);
+                missedByScan.forEach(event -> fresh.addBasket(event.getProductIds()));
+                missedByScan.clear();
+                aheadOfScan.clear();
+                counts = fresh;
+                recommendations = fresh.scoreAll();
+            }
+            log.info("Built also-bought recommendations from {} delivered orders in {} ms", orders,
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Failed to build also-bought recommendations", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onOrderDelivered(OrderDeliveredEvent event) {
+        if (rebuilding.get()) {
+            if (event.getOrderId() <= scannedUpTo) {
+                missedByScan.add(event);
+            } else {
+                aheadOfScan.add(event);
+            }
+        }
+        counts.addBasket(event.getProductIds());
+        for (Long productId : event.getProductIds()) {
+            recommendations.put(productId, counts.score(productId));
+        }
+    }
+
+    // Settles events that were ahead of the scan once a chunk up to lastId has been read
+    private synchronized void markScanned(Set<Long> chunk, long lastId) {
+        aheadOfScan.removeIf(event -> {
+            if (chunk.contains(event.getOrderId())) {
+                return true;
+            }
+            if (event.getOrderId() <= lastId) {
+                missedByScan.add(event);
+                return true;
+            }
+            return false;
+        });
+        scannedUpTo = lastId;
+    }
+
+    private class Counts {
+        private final LongIntHashMap orderCounts = new LongIntHashMap(1024);
+        private final Map<Long, LongIntHashMap> pairCounts = new HashMap<>();
+
+        private void addBasket(Collection<Long> productIds) {
+            long[] basket = productIds.stream().distinct().limit(MAX_BASKET_SIZE)
+                    .mapToLong(Long::longValue).toArray();
+            for (long product : basket) {
+                orderCounts.addTo(product, 1);
+            }
+            for (long a : basket) {
+                LongIntHashMap partners = pairCounts.computeIfAbsent(a, id -> new LongIntHashMap());
+                for (long b : basket) {
+                    if (a != b) {
+                        partners.addTo(b, 1);
+                    }
+                }
+                // Lossy pruning: drop the rarest pairs until the product is back under its budget
+                for (int threshold = 2; partners.size() > maxPairsPerProduct; threshold++) {
+                    partners.removeBelow(threshold);
+                }
+            }
+        }
+
+        private ScoredIds score(long productId) {
+            LongIntHashMap partners = pairCounts.get(productId);
+            if (partners == null) {
+                return ScoredIds.EMPTY;
+            }
+            int ordersWithProduct = orderCounts.get(productId);
+            ScoredIds[] best = { ScoredIds.EMPTY };
+            partners.forEach((partner, together) -> {
+                if (together >= minSupport) {
+                    float cosine = (float) (together / Math.sqrt((double) ordersWithProduct
+                            * orderCounts.get(partner)));
+                    best[0] = best[0].offer(partner, cosine, topK);
+                }
+            });
+            return best[0];
+        }
+
+        private Map<Long, ScoredIds> scoreAll() {
+            Map<Long, ScoredIds> scored = new ConcurrentHashMap<>();
+            for (Long productId : pairCounts.keySet()) {
+                ScoredIds top = score(productId);
+                if (top.size() > 0) {
+                    scored.put(productId, top);
+                }
+            }
+            return scored;
+        }
+    }
+}
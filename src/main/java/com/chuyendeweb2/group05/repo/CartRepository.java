@@ -1,6 +1,8 @@
 package com.chuyendeweb2.group05.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.chuyendeweb2.group05.entity.meta.Cart;
@@ -17,5 +19,13 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
 
     boolean existsByUserId(Integer userId);
 
+    // The cart with its lines and their products, in one statement
+    @Query("select distinct c from Cart c left join fetch c.cartItems i left join fetch i.product"
+            + " where c.user.id = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Integer userId);
+
+    @Query("select distinct c from Cart c left join fetch c.cartItems i left join fetch i.product")
+    List<Cart> findAllWithItems();
+
     List<Cart> findAll();
 }
\ No newline at end of file
@@ -19,4 +19,6 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findByParentCategory(Category parentCategory);
 
     boolean existsByNameAndIdNot(String name, long id);
+
+    boolean existsByLftIsNull();
 }
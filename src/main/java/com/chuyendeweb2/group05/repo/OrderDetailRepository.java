@@ -1,12 +1,15 @@
 package com.chuyendeweb2.group05.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.chuyendeweb2.group05.entity.meta.Order;
 import com.chuyendeweb2.group05.entity.meta.OrderDetail;
 import com.chuyendeweb2.group05.entity.meta.Product;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,4 +17,8 @@ public interface OrderDetailRepository extends JpaRepository<OrderDetail, Long>
     List<OrderDetail> findByOrder(Order order);
 
     List<OrderDetail> findByProduct(Product product);
+
+    // (orderId, productId) pairs of the given orders, without loading the entities
+    @Query("select d.order.id, d.product.id from OrderDetail d where d.order.id in :orderIds")
+    List<Object[]> findOrderProductPairs(@Param("orderIds") Collection<Long> orderIds);
 }
\ No newline at end of file
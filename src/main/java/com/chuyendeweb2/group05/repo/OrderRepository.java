@@ -1,6 +1,9 @@
 package com.chuyendeweb2.group05.repo;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.chuyendeweb2.group05.entity.meta.Order;
@@ -21,4 +24,9 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     List<Order> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
 
     List<Order> findByUserAndStatus(User user, OrderStatus status);
+
+    // Keyset scan over the IDs of orders in a status, for batch jobs
+    @Query("select o.id from Order o where o.status = :status and o.id > :afterId order by o.id")
+    List<Long> findIdsByStatusAfter(@Param("status") OrderStatus status, @Param("afterId") Long afterId,
+            Pageable pageable);
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.chuyendeweb2.group05.enums.PostStatus;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -17,6 +18,9 @@ public interface PostRepository extends JpaRepository<Post, Long> {
 
     Page<Post> findByStatus(PostStatus status, Pageable pageable);
 
+    // Reads one extra row instead of running a count query
+    Slice<Post> findSliceByStatus(PostStatus status, Pageable pageable);
+
     // New method to find a post by its ID
     Optional<Post> findById(Long id);
 }
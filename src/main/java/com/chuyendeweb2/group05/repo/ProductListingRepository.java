@@ -0,0 +1,47 @@
+package com.chuyendeweb2.group05.repo;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.chuyendeweb2.group05.dto.ProductResponseDTO;
+import com.chuyendeweb2.group05.entity.meta.Product;
+
+import java.util.List;
+
+/**
+ * Read path for product listing pages. Builds {@link ProductResponseDTO}s
+ * straight from a projection instead of mapping managed entities, so a page
+ * costs a fixed number of statements regardless of its size.
+ */
+public interface ProductListingRepository {
+
+    /**
+     * Runs one projection query for the page (product, category, seller and
+     * approver columns), one query for the images of all products on the page
+     * and, when needed, one count query.
+     */
+    Page<ProductResponseDTO> findListing(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * Same projection as {@link #findListing} but returns the first
+     * {@code limit} rows without an offset or count query. Used for keyset
+     * pagination, where the specification carries the seek predicate.
+     */
+    List<ProductResponseDTO> findListingWindow(Specification<Product> spec, Sort sort, int limit);
+
+    /**
+     * Like {@link #findListing} but without the count query: reads one row past
+     * the page to tell whether another page exists.
+     */
+    Slice<ProductResponseDTO> findListingSlice(Specification<Product> spec, Pageable pageable);
+
+    /**
+     * IDs of up to {@code limit} products matching the specification with an
+     * ID greater than {@code afterId}, ascending. Used to walk a filtered set
+     * in keyset chunks.
+     */
+    List<Long> findIdsAfter(Specification<Product> spec, long afterId, int limit);
+}
@@ -0,0 +1,211 @@
+package com.chuyendeweb2.group05.repo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.chuyendeweb2.group05.dto.ProductImageDTO;
+import com.chuyendeweb2.group05.dto.ProductResponseDTO;
+import com.chuyendeweb2.group05.entity.meta.Category;
+import com.chuyendeweb2.group05.entity.meta.Product;
+import com.chuyendeweb2.group05.entity.meta.User;
+import com.chuyendeweb2.group05.enums.ProductStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ProductListingRepositoryImpl implements ProductListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<ProductResponseDTO> findListing(Specification<Product> spec, Pageable pageable) {
+        List<ProductResponseDTO> content = pageable.isPaged()
+                ? select(spec, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize())
+                : select(spec, pageable.getSort(), 0, null);
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<ProductResponseDTO> findListingWindow(Specification<Product> spec, Sort sort, int limit) {
+        return select(spec, sort, 0, limit);
+    }
+
+    @Override
+    public Slice<ProductResponseDTO> findListingSlice(Specification<Product> spec, Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(select(spec, pageable.getSort(), 0, null), pageable, false);
+        }
+        List<ProductResponseDTO> rows = select(spec, pageable.getSort(), (int) pageable.getOffset(),
+                pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    @Override
+    public List<Long> findIdsAfter(Specification<Product> spec, long afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+        Path<Long> id = root.get("id");
+
+        Predicate predicate = cb.greaterThan(id, afterId);
+        Predicate filter = spec != null ? spec.toPredicate(root, query, cb) : null;
+        query.select(id)
+                .where(filter != null ? cb.and(filter, predicate) : predicate)
+                .orderBy(cb.asc(id));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+
+    private List<ProductResponseDTO> select(Specification<Product> spec, Sort sort, int offset, Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Category> category = root.join("category");
+        Join<Product, User> seller = root.join("seller");
+        Join<Product, User> approvedBy = root.join("approvedBy", JoinType.LEFT);
+
+        query.multiselect(
+                root.get("id"),
+                root.get("name"),
+                root.get("description"),
+                root.get("price"),
+                root.get("stockQuantity"),
+                root.get("imageUrl"),
+                root.get("status"),
+                category.get("id"),
+                category.get("name"),
+                seller.get("id"),
+                seller.get("firstname"),
+                seller.get("lastname"),
+                root.get("createdAt"),
+                root.get("updatedAt"),
+                root.get("approvedAt"),
+                approvedBy.get("id"),
+                approvedBy.get("firstname"),
+                approvedBy.get("lastname"),
+                root.get("ratingSum"),
+                root.get("ratingCount"),
+                root.get("favoriteCount"));
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        // An explicit sort wins over any ordering the specification applied
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setFirstResult(offset);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit);
+        }
+
+        List<ProductResponseDTO> content = new ArrayList<>();
+        for (Tuple row : typedQuery.getResultList()) {
+            content.add(toResponse(row));
+        }
+        attachImages(content);
+        return content;
+    }
+
+    private long count(Specification<Product> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Product> root = query.from(Product.class);
+
+        Predicate predicate = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+        // Remove any ordering the specification applied
+        query.orderBy(Collections.emptyList());
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // Loads the images of every product on the page with a single query
+    private void attachImages(List<ProductResponseDTO> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+        Map<Long, ProductResponseDTO> byId = new HashMap<>();
+        for (ProductResponseDTO product : products) {
+            product.setImages(new ArrayList<>());
+            byId.put(product.getId(), product);
+        }
+
+        List<Object[]> rows = entityManager.createQuery("""
+                select i.product.id, i.id, i.url, i.isPrimary
+                from ProductImage i
+                where i.product.id in :ids
+                order by i.id
+                """, Object[].class)
+                .setParameter("ids", byId.keySet())
+                .getResultList();
+
+        for (Object[] row : rows) {
+            byId.get((Long) row[0]).getImages().add(ProductImageDTO.builder()
+                    .id((Long) row[1])
+                    .url((String) row[2])
+                    .isPrimary((Boolean) row[3])
+                    .build());
+        }
+    }
+
+    private ProductResponseDTO toResponse(Tuple row) {
+        long ratingSum = row.get(18, Long.class);
+        int ratingCount = row.get(19, Integer.class);
+        String approverFirstname = row.get(16, String.class);
+
+        return ProductResponseDTO.builder()
+                .id(row.get(0, Long.class))
+                .name(row.get(1, String.class))
+                .description(row.get(2, String.class))
+                .price(row.get(3, BigDecimal.class))
+                .stockQuantity(row.get(4, Integer.class))
+                .imageUrl(row.get(5, String.class))
+                .status(row.get(6, ProductStatus.class))
+                .categoryId(row.get(7, Long.class))
+                .categoryName(row.get(8, String.class))
+                .sellerId(row.get(9, Integer.class))
+                .sellerName(row.get(10, String.class) + " " + row.get(11, String.class))
+                .createdAt(row.get(12, LocalDateTime.class))
+                .updatedAt(row.get(13, LocalDateTime.class))
+                .approvedAt(row.get(14, LocalDateTime.class))
+                .approvedById(row.get(15, Integer.class))
+                .approvedByName(approverFirstname != null
+                        ? approverFirstname + " " + row.get(17, String.class)
+                        : null)
+                .averageRating(ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount)
+                .reviewCount(ratingCount)
+                .favoriteCount(row.get(20, Integer.class))
+                .build();
+    }
+}
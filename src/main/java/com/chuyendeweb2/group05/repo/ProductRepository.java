@@ -4,16 +4,24 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.chuyendeweb2.group05.entity.meta.Product;
 import com.chuyendeweb2.group05.entity.meta.User;
 import com.chuyendeweb2.group05.enums.ProductStatus;
+import com.chuyendeweb2.group05.search.ProductDocument;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>,
+        ProductListingRepository, ProductStockRepository {
         List<Product> findByStatus(ProductStatus status);
 
         Page<Product> findByStatus(ProductStatus status, Pageable pageable);
@@ -21,4 +29,128 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
         List<Product> findBySeller(User seller);
 
         Page<Product> findBySeller(User seller, Pageable pageable);
-}
\ No newline at end of file
+
+        // Keyset scan used to load the in-memory catalog indexes in batches
+        @Query("""
+                        select new com.chuyendeweb2.group05.search.ProductDocument(
+                                p.id, p.name, p.description, p.category.id, p.price, p.stockQuantity, p.status,
+                                p.ratingCount + p.favoriteCount)
+                        from Product p
+                        where p.status = :status and p.id > :afterId
+                        order by p.id
+                        """)
+        List<ProductDocument> findDocumentsAfter(@Param("status") ProductStatus status,
+                        @Param("afterId") Long afterId, Pageable pageable);
+
+        @Query("""
+                        select new com.chuyendeweb2.group05.search.ProductDocument(
+                                p.id, p.name, p.description, p.category.id, p.price, p.stockQuantity, p.status,
+                                p.ratingCount + p.favoriteCount)
+                        from Product p
+                        where p.id in :ids
+                        """)
+        List<ProductDocument> findDocumentsByIdIn(@Param("ids") Collection<Long> ids);
+
+        /**
+         * Applies a review change to the rating counters. Pass a positive
+         * {@code countDelta} when a review with rating {@code star} is added and
+         * a negative one when it is removed.
+         */
+        @Transactional
+        @Modifying
+        @Query(value = """
+                        update products
+                        set rating_sum = rating_sum + :star * :countDelta,
+                            rating_count = rating_count + :countDelta,
+                            rating_one_count = rating_one_count + case when :star = 1 then :countDelta else 0 end,
+                            rating_two_count = rating_two_count + case when :star = 2 then :countDelta else 0 end,
+                            rating_three_count = rating_three_count + case when :star = 3 then :countDelta else 0 end,
+                            rating_four_count = rating_four_count + case when :star = 4 then :countDelta else 0 end,
+                            rating_five_count = rating_five_count + case when :star = 5 then :countDelta else 0 end
+                        where id = :productId
+                        """, nativeQuery = true)
+        int adjustRatingStats(@Param("productId") Long productId, @Param("star") int star,
+                        @Param("countDelta") int countDelta);
+
+        @Transactional
+        @Modifying
+        @Query(value = "update products set favorite_count = favorite_count + :delta where id = :productId", nativeQuery = true)
+        int adjustFavoriteCount(@Param("productId") Long productId, @Param("delta") int delta);
+
+        /**
+         * Recomputes the review and favorite counters of the products whose ID
+         * is in [fromId, toId] from the reviews and favorites tables.
+         */
+        @Transactional
+        @Modifying
+        @Query(value = """
+                        update products p
+                        left join (
+                                select product_id,
+                                       sum(rating) as rating_sum,
+                                       count(*) as rating_count,
+                                       sum(rating = 1) as one_count,
+                                       sum(rating = 2) as two_count,
+                                       sum(rating = 3) as three_count,
+                                       sum(rating = 4) as four_count,
+                                       sum(rating = 5) as five_count
+                                from reviews
+                                where product_id between :fromId and :toId
+                                group by product_id) r on r.product_id = p.id
+                        left join (
+                                select product_id, count(*) as favorite_count
+                                from favorites
+                                where product_id between :fromId and :toId
+                                group by product_id) f on f.product_id = p.id
+                        set p.rating_sum = coalesce(r.rating_sum, 0),
+                            p.rating_count = coalesce(r.rating_count, 0),
+                            p.rating_one_count = coalesce(r.one_count, 0),
+                            p.rating_two_count = coalesce(r.two_count, 0),
+                            p.rating_three_count = coalesce(r.three_count, 0),
+                            p.rating_four_count = coalesce(r.four_count, 0),
+                            p.rating_five_count = coalesce(r.five_count, 0),
+                            p.favorite_count = coalesce(f.favorite_count, 0)
+                        where p.id between :fromId and :toId
+                        """, nativeQuery = true)
+        int reconcileStats(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+        @Query("select coalesce(max(p.id), 0) from Product p")
+        Long findMaxId();
+
+        // Bulk moderation: set-based, so entity callbacks do not run and updatedAt is set here.
+        // Only PENDING products are approved; deactivated ones stay INACTIVE.
+        @Transactional
+        @Modifying
+        @Query("""
+                        update Product p
+                        set p.status = com.chuyendeweb2.group05.enums.ProductStatus.ACTIVE,
+                            p.approvedBy = :admin, p.approvedAt = :now, p.updatedAt = :now
+                        where p.id in :ids and p.status = com.chuyendeweb2.group05.enums.ProductStatus.PENDING
+                        """)
+        int approveAll(@Param("ids") Collection<Long> ids, @Param("admin") User admin,
+                        @Param("now") LocalDateTime now);
+
+        @Transactional
+        @Modifying
+        @Query("""
+                        update Product p
+                        set p.status = com.chuyendeweb2.group05.enums.ProductStatus.INACTIVE, p.updatedAt = :now
+                        where p.id in :ids and p.status <> com.chuyendeweb2.group05.enums.ProductStatus.INACTIVE
+                        """)
+        int deactivateAll(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+        // Keyset scan over products written before search_text existed: (id, name, description)
+        @Query("""
+                        select p.id, p.name, p.description
+                        from Product p
+                        where p.searchText is null and p.id > :afterId
+                        order by p.id
+                        """)
+        List<Object[]> findMissingSearchTextAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+        // Bypasses the entity callbacks so backfilling leaves updatedAt untouched
+        @Transactional
+        @Modifying
+        @Query("update Product p set p.searchText = :searchText where p.id = :productId")
+        int updateSearchText(@Param("productId") Long productId, @Param("searchText") String searchText);
+}
@@ -0,0 +1,70 @@
+package com.chuyendeweb2.group05.repo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based stock updates that never read the stock into memory first, so
+ * concurrent checkouts of the same product cannot oversell it.
+ * <p>
+ * Products in flash-sale mode keep their stock in shard rows
+ * ({@code product_stock_shards}) instead of {@code products.stock_quantity};
+ * the stock methods below pick the right place per product.
+ */
+public interface ProductStockRepository {
+
+    /**
+     * Takes the given quantities (product ID to quantity) out of stock with
+     * conditional updates, in ascending product ID order across plain and
+     * flash-sale products so concurrent callers lock rows in the same order. A
+     * product is only decremented while it has enough stock.
+     * <p>
+     * Flash-sale products need a READ COMMITTED transaction, so shards a
+     * checkout looked at but did not take stay free for the others.
+     *
+     * @return IDs of the products that did not have enough stock; when not empty
+     *         the caller must roll back to undo the other decrements
+     */
+    List<Long> decrementStock(Map<Long, Integer> quantities);
+
+    /**
+     * Puts the given quantities (product ID to quantity) back into stock, in
+     * ascending product ID order.
+     */
+    void incrementStock(Map<Long, Integer> quantities);
+
+    /**
+     * Moves the product's stock into {@code shardCount} shard rows of about
+     * equal size. Must run in a transaction.
+     *
+     * @return false when the product is already in flash-sale mode
+     */
+    boolean startFlashSale(Long productId, int shardCount);
+
+    /**
+     * Folds the product's shard rows back into {@code products.stock_quantity}
+     * and deletes them. Must run in a transaction.
+     *
+     * @return the product's stock, or null when it was not in flash-sale mode
+     */
+    Integer endFlashSale(Long productId);
+
+    /**
+     * Copies the shard sums of every product in flash-sale mode into
+     * {@code products.stock_quantity}, each with one statement that reads the
+     * sum and skips products whose sale has ended.
+     *
+     * @return IDs of the products whose stock changed
+     */
+    List<Long> syncFlashSaleStock();
+
+    /**
+     * Current stock of those of the given products that are in flash-sale
+     * mode: the sum of their shards, which {@code products.stock_quantity}
+     * only catches up with on the next {@link #syncFlashSaleStock()}.
+     *
+     * @return product ID to stock; products not in flash-sale mode are absent
+     */
+    Map<Long, Integer> findFlashSaleStock(Collection<Long> productIds);
+}
@@ -0,0 +1,269 @@
+package com.chuyendeweb2.group05.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class ProductStockRepositoryImpl implements ProductStockRepository {
+
+    // First shard in [from, to) that covers the quantity and no other checkout has locked
+    private static final String PICK_SHARD = """
+            select shard from product_stock_shards
+            where product_id = ? and shard >= ? and shard < ? and stock_quantity >= ?
+            order by shard limit 1 for update skip locked
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Plain and sharded lines are walked together in ascending product ID order,
+    // so every caller takes its row locks in the same order; runs of plain lines
+    // between sharded ones still go out as one batch
+    @Override
+    public List<Long> decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> shardCounts = findShardCounts(quantities.keySet());
+
+        List<Long> insufficient = new ArrayList<>();
+        List<Map.Entry<Long, Integer>> run = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            Integer shardCount = shardCounts.get(line.getKey());
+            if (shardCount == null) {
+                run.add(line);
+                continue;
+            }
+            insufficient.addAll(decrementProducts(run));
+            run.clear();
+            if (!decrementShards(line.getKey(), line.getValue(), shardCount)) {
+                insufficient.add(line.getKey());
+            }
+        }
+        insufficient.addAll(decrementProducts(run));
+        return insufficient;
+    }
+
+    @Override
+    public void incrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> shardCounts = findShardCounts(quantities.keySet());
+
+        List<Map.Entry<Long, Integer>> run = new ArrayList<>();
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantities).entrySet()) {
+            Integer shardCount = shardCounts.get(line.getKey());
+            if (shardCount == null) {
+                run.add(line);
+                continue;
+            }
+            incrementProducts(run);
+            run.clear();
+            jdbcTemplate.update("""
+                    update product_stock_shards set stock_quantity = stock_quantity + ?
+                    where product_id = ? and shard = ?
+                    """, line.getValue(), line.getKey(), ThreadLocalRandom.current().nextInt(shardCount));
+        }
+        incrementProducts(run);
+    }
+
+    @Override
+    public boolean startFlashSale(Long productId, int shardCount) {
+        Integer stock = jdbcTemplate.queryForObject(
+                "select stock_quantity from products where id = ? for update", Integer.class, productId);
+        Integer existing = jdbcTemplate.queryForObject(
+                "select count(*) from product_stock_shards where product_id = ?", Integer.class, productId);
+        if (existing != null && existing > 0) {
+            return false;
+        }
+        writeShards(productId, split(stock != null ? stock : 0, shardCount), "insert into product_stock_shards"
+                + " (stock_quantity, product_id, shard) values (?, ?, ?)");
+        return true;
+    }
+
+    @Override
+    public Integer endFlashSale(Long productId) {
+        jdbcTemplate.queryForObject("select id from products where id = ? for update", Long.class, productId);
+        List<Integer> shards = jdbcTemplate.queryForList(
+                "select stock_quantity from product_stock_shards where product_id = ? order by shard for update",
+                Integer.class, productId);
+        if (shards.isEmpty()) {
+            return null;
+        }
+        int stock = shards.stream().mapToInt(Integer::intValue).sum();
+        jdbcTemplate.update("update products set stock_quantity = ?, updated_at = ? where id = ?",
+                stock, Timestamp.valueOf(LocalDateTime.now()), productId);
+        jdbcTemplate.update("delete from product_stock_shards where product_id = ?", productId);
+        return stock;
+    }
+
+    @Override
+    public List<Long> syncFlashSaleStock() {
+        List<Long> productIds = jdbcTemplate.queryForList("""
+                select s.product_id
+                from product_stock_shards s inner join products p on p.id = s.product_id
+                group by s.product_id, p.stock_quantity
+                having sum(s.stock_quantity) <> p.stock_quantity
+                """, Long.class);
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        // The sum is read by the update itself, and only while the product still has
+        // shards: a sale ended in the meantime has already folded the shards into the
+        // row, which a sum read earlier would overwrite with stale stock
+        int[][] counts = jdbcTemplate.batchUpdate("""
+                update products p
+                set p.stock_quantity = (select sum(s.stock_quantity) from product_stock_shards s
+                                        where s.product_id = p.id)
+                where p.id = ? and exists (select 1 from product_stock_shards s where s.product_id = p.id)
+                """, productIds, productIds.size(), (ps, productId) -> ps.setLong(1, productId));
+
+        List<Long> synced = new ArrayList<>();
+        for (int i = 0; i < productIds.size(); i++) {
+            if (counts[0][i] > 0) {
+                synced.add(productIds.get(i));
+            }
+        }
+        return synced;
+    }
+
+    @Override
+    public Map<Long, Integer> findFlashSaleStock(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        Map<Long, Integer> stock = new TreeMap<>();
+        jdbcTemplate.query("select product_id, sum(stock_quantity) as stock from product_stock_shards"
+                + " where product_id in (" + placeholders + ") group by product_id",
+                rs -> {
+                    stock.put(rs.getLong("product_id"), rs.getInt("stock"));
+                }, productIds.toArray());
+        return stock;
+    }
+
+    // Product ID -> number of shards, for the given products that are in flash-sale mode
+    private Map<Long, Integer> findShardCounts(Collection<Long> productIds) {
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        Map<Long, Integer> shardCounts = new TreeMap<>();
+        jdbcTemplate.query("select product_id, count(*) as shards from product_stock_shards"
+                + " where product_id in (" + placeholders + ") group by product_id",
+                rs -> {
+                    shardCounts.put(rs.getLong("product_id"), rs.getInt("shards"));
+                }, productIds.toArray());
+        return shardCounts;
+    }
+
+    // One batch of conditional updates; returns the products whose stock condition failed
+    private List<Long> decrementProducts(List<Map.Entry<Long, Integer>> lines) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int[][] counts = jdbcTemplate.batchUpdate("""
+                update products set stock_quantity = stock_quantity - ?, updated_at = ?
+                where id = ? and stock_quantity >= ?
+                """, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+            ps.setInt(4, line.getValue());
+        });
+
+        // One batch of lines.size() statements; a count of 0 means the stock condition failed
+        List<Long> insufficient = new ArrayList<>();
+        for (int i = 0; i < lines.size(); i++) {
+            if (counts[0][i] == 0) {
+                insufficient.add(lines.get(i).getKey());
+            }
+        }
+        return insufficient;
+    }
+
+    private void incrementProducts(List<Map.Entry<Long, Integer>> lines) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("""
+                update products set stock_quantity = stock_quantity + ?, updated_at = ?
+                where id = ?
+                """, lines, lines.size(), (ps, line) -> {
+            ps.setInt(1, line.getValue());
+            ps.setTimestamp(2, now);
+            ps.setLong(3, line.getKey());
+        });
+    }
+
+    /**
+     * Takes the quantity from one shard, searching from a random one onwards
+     * so concurrent checkouts of the product mostly lock different rows. When
+     * no free shard can cover it, locks all the product's shards, and spreads
+     * what is left evenly over them after taking the quantity from their sum.
+     * <p>
+     * The search skips locked shards instead of waiting for them, so only the
+     * fallback waits, and it locks the shards in ascending order while holding
+     * none of them. Under READ COMMITTED the search leaves the shards it
+     * passes over unlocked; a conditional update that waited for a shard and
+     * then failed would keep it locked and could deadlock with the fallback.
+     */
+    private boolean decrementShards(Long productId, int quantity, int shardCount) {
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+        List<Integer> picked = jdbcTemplate.queryForList(PICK_SHARD, Integer.class,
+                productId, start, shardCount, quantity);
+        if (picked.isEmpty()) {
+            picked = jdbcTemplate.queryForList(PICK_SHARD, Integer.class, productId, 0, start, quantity);
+        }
+        if (!picked.isEmpty()) {
+            jdbcTemplate.update("""
+                    update product_stock_shards set stock_quantity = stock_quantity - ?
+                    where product_id = ? and shard = ?
+                    """, quantity, productId, picked.get(0));
+            return true;
+        }
+
+        List<Integer> shards = jdbcTemplate.queryForList(
+                "select stock_quantity from product_stock_shards where product_id = ? order by shard for update",
+                Integer.class, productId);
+        int stock = shards.stream().mapToInt(Integer::intValue).sum();
+        if (stock < quantity) {
+            return false;
+        }
+        writeShards(productId, split(stock - quantity, shards.size()),
+                "update product_stock_shards set stock_quantity = ? where product_id = ? and shard = ?");
+        return true;
+    }
+
+    private void writeShards(Long productId, int[] stocks, String sql) {
+        List<Integer> shards = new ArrayList<>();
+        for (int shard = 0; shard < stocks.length; shard++) {
+            shards.add(shard);
+        }
+        jdbcTemplate.batchUpdate(sql, shards, shards.size(), (ps, shard) -> {
+            ps.setInt(1, stocks[shard]);
+            ps.setLong(2, productId);
+            ps.setInt(3, shard);
+        });
+    }
+
+    // Splits stock into shardCount parts differing by at most one unit
+    private static int[] split(int stock, int shardCount) {
+        int[] parts = new int[shardCount];
+        for (int shard = 0; shard < shardCount; shard++) {
+            parts[shard] = stock / shardCount + (shard < stock % shardCount ? 1 : 0);
+        }
+        return parts;
+    }
+}
@@ -2,6 +2,7 @@ package com.chuyendeweb2.group05.repo;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -27,6 +28,11 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
     Page<Review> findByProductAndVerified(Product product, Boolean verified, Pageable pageable);
 
+    // Slice variants read one extra row instead of running a count query
+    Slice<Review> findSliceByProduct(Product product, Pageable pageable);
+
+    Slice<Review> findSliceByProductAndVerified(Product product, Boolean verified, Pageable pageable);
+
     Page<Review> findByProductAndRating(Product product, Integer rating, Pageable pageable);
 
     List<Review> findByUser(User user);
@@ -0,0 +1,256 @@
+package com.chuyendeweb2.group05.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chuyendeweb2.group05.dto.AutocompleteSuggestionDTO;
+import com.chuyendeweb2.group05.entity.meta.Category;
+import com.chuyendeweb2.group05.event.CategoryChangedEvent;
+import com.chuyendeweb2.group05.repo.CategoryRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Prefix suggestions over ACTIVE product names and active category names,
+ * ranked by popularity. Every word start of a name is a key, so "thun"
+ * suggests "Áo thun nam".
+ * <p>
+ * Queries run against an immutable snapshot of sorted key arrays. The best
+ * suggestions for every prefix up to {@link #PRECOMPUTED_PREFIX_LENGTH}
+ * characters are computed at build time, so the short prefixes typed first
+ * are a single map lookup; longer prefixes binary-search a narrow key range.
+ * Changes mark the index dirty and a background task swaps in a fresh
+ * snapshot.
+ */
+@Component
+@Slf4j
+public class AutocompleteIndex implements ProductCatalogListener {
+
+    public static final String TYPE_PRODUCT = "PRODUCT";
+    public static final String TYPE_CATEGORY = "CATEGORY";
+
+    private static final int PRECOMPUTED_PREFIX_LENGTH = 3;
+
+    private final CategoryRepository categoryRepository;
+    private final int maxSuggestions;
+
+    private final Map<Long, ProductEntry> products = new ConcurrentHashMap<>();
+    private volatile List<Category> categories = List.of();
+    private volatile boolean dirty;
+    private volatile boolean loaded;
+    private volatile Snapshot snapshot;
+
+    public AutocompleteIndex(CategoryRepository categoryRepository,
+            @Value("${product.autocomplete.max-suggestions:10}") int maxSuggestions) {
+        this.categoryRepository = categoryRepository;
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    @Override
+    public void onProductUpserted(ProductDocument document) {
+        int popularity = document.getPopularity() != null ? document.getPopularity() : 0;
+        products.put(document.getId(), new ProductEntry(document.getName(), document.getCategoryId(), popularity));
+        dirty = true;
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        if (products.remove(productId) != null) {
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded() {
+        categories = categoryRepository.findByIsActiveTrue();
+        loaded = true;
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categories = categoryRepository.findByIsActiveTrue();
+        dirty = true;
+    }
+
+    @Scheduled(fixedDelayString = "${product.autocomplete.rebuild-delay-ms:2000}")
+    public void rebuildIfDirty() {
+        if (loaded && dirty) {
+            rebuild();
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Returns up to {@code limit} suggestions whose name has a word starting
+     * with {@code prefix}, most popular first.
+     */
+    public List<AutocompleteSuggestionDTO> suggest(String prefix, int limit) {
+        Snapshot current = snapshot;
+        String key = normalize(prefix);
+        if (current == null || key.isEmpty()) {
+            return List.of();
+        }
+        int[] ranked = key.length() <= PRECOMPUTED_PREFIX_LENGTH && limit <= maxSuggestions
+                ? current.precomputed.getOrDefault(key, new int[0])
+                : current.topInRange(key, limit);
+
+        List<AutocompleteSuggestionDTO> suggestions = new ArrayList<>(Math.min(limit, ranked.length));
+        for (int i = 0; i < ranked.length && i < limit; i++) {
+            Suggestion suggestion = current.suggestions[ranked[i]];
+            suggestions.add(AutocompleteSuggestionDTO.builder()
+                    .text(suggestion.text)
+                    .type(suggestion.type)
+                    .id(suggestion.id)
+                    .build());
+        }
+        return suggestions;
+    }
+
+    private void rebuild() {
+        // Cleared before reading so changes made during the build trigger another one
+        dirty = false;
+        long start = System.currentTimeMillis();
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        Map<Long, Integer> categoryWeights = new HashMap<>();
+        products.forEach((id, product) -> {
+            suggestions.add(new Suggestion(product.name, TYPE_PRODUCT, id, product.popularity));
+            // A category is as popular as its products, and each listed product counts
+            categoryWeights.merge(product.categoryId, product.popularity + 1, Integer::sum);
+        });
+        for (Category category : categories) {
+            suggestions.add(new Suggestion(category.getName(), TYPE_CATEGORY, category.getId(),
+                    categoryWeights.getOrDefault(category.getId(), 0)));
+        }
+
+        snapshot = new Snapshot(suggestions.toArray(new Suggestion[0]), maxSuggestions);
+        log.debug("Rebuilt autocomplete index with {} suggestions in {} ms", suggestions.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    static String normalize(String text) {
+        return VietnameseAnalyzer.fold(text).trim().replaceAll("\\s+", " ");
+    }
+
+    private static class Snapshot {
+        private final Suggestion[] suggestions;
+        // Sorted keys and the suggestion each key belongs to
+        private final String[] keys;
+        private final int[] keySuggestions;
+        private final Map<String, int[]> precomputed = new HashMap<>();
+
+        private Snapshot(Suggestion[] suggestions, int maxSuggestions) {
+            this.suggestions = suggestions;
+
+            List<Object[]> entries = new ArrayList<>();
+            for (int s = 0; s < suggestions.length; s++) {
+                String name = normalize(suggestions[s].text);
+                for (int i = 0; i < name.length(); i++) {
+                    if (i == 0 || name.charAt(i - 1) == ' ') {
+                        entries.add(new Object[] { name.substring(i), s });
+                    }
+                }
+            }
+            entries.sort(Comparator.comparing(entry -> (String) entry[0]));
+            keys = new String[entries.size()];
+            keySuggestions = new int[entries.size()];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = (String) entries.get(i)[0];
+                keySuggestions[i] = (Integer) entries.get(i)[1];
+            }
+
+            // Keys sharing a prefix are contiguous, so each prefix is one range
+            for (int length = 1; length <= PRECOMPUTED_PREFIX_LENGTH; length++) {
+                int from = 0;
+                while (from < keys.length) {
+                    if (keys[from].length() < length) {
+                        from++;
+                        continue;
+                    }
+                    String prefix = keys[from].substring(0, length);
+                    int to = from + 1;
+                    while (to < keys.length && keys[to].startsWith(prefix)) {
+                        to++;
+                    }
+                    precomputed.put(prefix, top(from, to, maxSuggestions));
+                    from = to;
+                }
+            }
+        }
+
+        private int[] topInRange(String prefix, int limit) {
+            int from = lowerBound(prefix);
+            int to = lowerBound(prefix + Character.MAX_VALUE);
+            return top(from, to, limit);
+        }
+
+        // Best distinct suggestions among keys[from, to), by weight then text
+        private int[] top(int from, int to, int limit) {
+            Set<Integer> distinct = new LinkedHashSet<>();
+            for (int i = from; i < to; i++) {
+                distinct.add(keySuggestions[i]);
+            }
+            return distinct.stream()
+                    .sorted(Comparator.<Integer>comparingInt(s -> suggestions[s].weight).reversed()
+                            .thenComparing(s -> suggestions[s].text))
+                    .limit(limit)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+
+        // First index whose key is not less than the given one
+        private int lowerBound(String key) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static class Suggestion {
+        private final String text;
+        private final String type;
+        private final Long id;
+        private final int weight;
+
+        private Suggestion(String text, String type, Long id, int weight) {
+            this.text = text;
+            this.type = type;
+            this.id = id;
+            this.weight = weight;
+        }
+    }
+
+    private static class ProductEntry {
+        private final String name;
+        private final Long categoryId;
+        private final int popularity;
+
+        private ProductEntry(String name, Long categoryId, int popularity) {
+            this.name = name;
+            this.categoryId = categoryId;
+            this.popularity = popularity;
+        }
+    }
+}
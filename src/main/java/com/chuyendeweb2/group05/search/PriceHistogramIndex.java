@@ -0,0 +1,206 @@
+package com.chuyendeweb2.group05.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.chuyendeweb2.group05.dto.PriceBucketCountDTO;
+import com.chuyendeweb2.group05.dto.PriceHistogramDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Price histograms of ACTIVE products per category, for the price-range
+ * slider. Buckets are log-scaled (a fixed number per decade of VND) so cheap
+ * and expensive categories both get useful resolution, and each category keeps
+ * its counts in a primitive array updated on every catalog change.
+ * <p>
+ * Without a keyword a histogram is the sum of the category arrays, so its cost
+ * depends only on the number of categories and buckets, never on the number of
+ * products. With a keyword the matching products are bucketed one by one.
+ */
+@Component
+public class PriceHistogramIndex implements ProductCatalogListener {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Ascending lower bounds (VND) of buckets 1..n; bucket 0 holds everything cheaper
+    private final long[] bucketBounds;
+    private final Map<Long, CategoryHistogram> byCategory = new HashMap<>();
+    private final Map<Long, IndexedPrice> products = new HashMap<>();
+    private volatile boolean ready;
+
+    public PriceHistogramIndex(
+            @Value("${product.price-histogram.min-price:1000}") long minPrice,
+            @Value("${product.price-histogram.max-price:100000000000}") long maxPrice,
+            @Value("${product.price-histogram.buckets-per-decade:10}") int bucketsPerDecade) {
+        List<Long> bounds = new ArrayList<>();
+        double step = Math.pow(10, 1.0 / bucketsPerDecade);
+        for (double bound = minPrice; bound <= maxPrice * 1.000001; bound *= step) {
+            long rounded = Math.round(bound);
+            if (bounds.isEmpty() || rounded > bounds.get(bounds.size() - 1)) {
+                bounds.add(rounded);
+            }
+        }
+        this.bucketBounds = bounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public void onProductUpserted(ProductDocument document) {
+        IndexedPrice indexed = new IndexedPrice(document.getCategoryId(), document.getPrice(),
+                bucketOf(document.getPrice()));
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.getId());
+            products.put(document.getId(), indexed);
+            byCategory.computeIfAbsent(indexed.categoryId, id -> new CategoryHistogram(bucketBounds.length + 1))
+                    .add(indexed);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Price histogram of ACTIVE products.
+     *
+     * @param categoryIds categories to include, or null for all
+     * @param keywordHits IDs matching the keyword, or null when there is no keyword
+     */
+    public PriceHistogramDTO histogram(Collection<Long> categoryIds, Collection<Long> keywordHits) {
+        int[] counts = new int[bucketBounds.length + 1];
+        BigDecimal min = null;
+        BigDecimal max = null;
+
+        lock.readLock().lock();
+        try {
+            if (keywordHits != null) {
+                for (Long id : keywordHits) {
+                    IndexedPrice indexed = products.get(id);
+                    if (indexed == null || (categoryIds != null && !categoryIds.contains(indexed.categoryId))) {
+                        continue;
+                    }
+                    counts[indexed.bucket]++;
+                    min = min == null || indexed.price.compareTo(min) < 0 ? indexed.price : min;
+                    max = max == null || indexed.price.compareTo(max) > 0 ? indexed.price : max;
+                }
+            } else {
+                Collection<CategoryHistogram> histograms = categoryIds == null ? byCategory.values()
+                        : categoryIds.stream().map(byCategory::get).filter(Objects::nonNull).toList();
+                for (CategoryHistogram histogram : histograms) {
+                    if (histogram.prices.isEmpty()) {
+                        continue;
+                    }
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] += histogram.counts[i];
+                    }
+                    BigDecimal low = histogram.prices.firstKey();
+                    BigDecimal high = histogram.prices.lastKey();
+                    min = min == null || low.compareTo(min) < 0 ? low : min;
+                    max = max == null || high.compareTo(max) > 0 ? high : max;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        if (min == null) {
+            return PriceHistogramDTO.builder().total(0).buckets(List.of()).build();
+        }
+
+        int total = 0;
+        List<PriceBucketCountDTO> buckets = new ArrayList<>();
+        for (int i = bucketOf(min); i <= bucketOf(max); i++) {
+            total += counts[i];
+            buckets.add(PriceBucketCountDTO.builder()
+                    .from(i == 0 ? null : BigDecimal.valueOf(bucketBounds[i - 1]))
+                    .to(i == bucketBounds.length ? null : BigDecimal.valueOf(bucketBounds[i]))
+                    .count(counts[i])
+                    .build());
+        }
+
+        return PriceHistogramDTO.builder()
+                .total(total)
+                .minPrice(min)
+                .maxPrice(max)
+                .buckets(buckets)
+                .build();
+    }
+
+    private void removeInternal(Long productId) {
+        IndexedPrice previous = products.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        CategoryHistogram histogram = byCategory.get(previous.categoryId);
+        histogram.remove(previous);
+        if (histogram.prices.isEmpty()) {
+            byCategory.remove(previous.categoryId);
+        }
+    }
+
+    // Number of bucket bounds at or below the price
+    private int bucketOf(BigDecimal price) {
+        long vnd = price.longValue();
+        int index = Arrays.binarySearch(bucketBounds, vnd);
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private static final class CategoryHistogram {
+        private final int[] counts;
+        // Price -> number of products at that price, for an exact min and max
+        private final TreeMap<BigDecimal, Integer> prices = new TreeMap<>();
+
+        private CategoryHistogram(int buckets) {
+            this.counts = new int[buckets];
+        }
+
+        private void add(IndexedPrice indexed) {
+            counts[indexed.bucket]++;
+            prices.merge(indexed.price, 1, Integer::sum);
+        }
+
+        private void remove(IndexedPrice indexed) {
+            counts[indexed.bucket]--;
+            prices.computeIfPresent(indexed.price, (price, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private static final class IndexedPrice {
+        private final Long categoryId;
+        private final BigDecimal price;
+        private final int bucket;
+
+        private IndexedPrice(Long categoryId, BigDecimal price, int bucket) {
+            this.categoryId = categoryId;
+            this.price = price;
+            this.bucket = bucket;
+        }
+    }
+}
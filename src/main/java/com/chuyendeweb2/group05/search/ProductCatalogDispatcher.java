@@ -0,0 +1,117 @@
+package com.chuyendeweb2.group05.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.chuyendeweb2.group05.enums.ProductStatus;
+import com.chuyendeweb2.group05.event.ProductChangedEvent;
+import com.chuyendeweb2.group05.repo.ProductRepository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps every {@link ProductCatalogListener} in sync with the ACTIVE products
+ * in the database: streams the catalog once on startup and replays committed
+ * {@link ProductChangedEvent}s afterwards. Products in flash-sale mode carry
+ * the sum of their stock shards, not the lagging {@code products.stock_quantity}.
+ * <p>
+ * Changes committed before the load has finished are held back and replayed
+ * once it has, so a batch the load read earlier never overwrites a newer
+ * document.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCatalogDispatcher {
+
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final ProductRepository productRepository;
+    private final List<ProductCatalogListener> listeners;
+
+    private final Object loadLock = new Object();
+    // Guarded by loadLock
+    private final Set<Long> changedWhileLoading = new HashSet<>();
+    private boolean catalogLoaded;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalog() {
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        int loaded = 0;
+        List<ProductDocument> batch;
+        do {
+            batch = productRepository.findDocumentsAfter(ProductStatus.ACTIVE, lastId,
+                    PageRequest.of(0, LOAD_BATCH_SIZE));
+            for (ProductDocument document : withFlashSaleStock(batch)) {
+                listeners.forEach(listener -> listener.onProductUpserted(document));
+                lastId = document.getId();
+            }
+            loaded += batch.size();
+        } while (batch.size() == LOAD_BATCH_SIZE);
+
+        // Re-read what changed meanwhile, until no more changes arrive
+        while (true) {
+            Set<Long> changed;
+            synchronized (loadLock) {
+                if (changedWhileLoading.isEmpty()) {
+                    catalogLoaded = true;
+                    break;
+                }
+                changed = new HashSet<>(changedWhileLoading);
+                changedWhileLoading.clear();
+            }
+            reload(changed);
+        }
+
+        listeners.forEach(ProductCatalogListener::onCatalogLoaded);
+        log.info("Loaded {} active products into {} catalog listeners in {} ms", loaded, listeners.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        synchronized (loadLock) {
+            if (!catalogLoaded) {
+                changedWhileLoading.addAll(event.getProductIds());
+                return;
+            }
+        }
+        reload(event.getProductIds());
+    }
+
+    private void reload(Collection<Long> productIds) {
+        Set<Long> removed = new HashSet<>(productIds);
+        for (ProductDocument document : withFlashSaleStock(productRepository.findDocumentsByIdIn(productIds))) {
+            if (document.isActive()) {
+                removed.remove(document.getId());
+                listeners.forEach(listener -> listener.onProductUpserted(document));
+            }
+        }
+        for (Long productId : removed) {
+            listeners.forEach(listener -> listener.onProductRemoved(productId));
+        }
+    }
+
+    private List<ProductDocument> withFlashSaleStock(List<ProductDocument> documents) {
+        Map<Long, Integer> stock = documents.isEmpty() ? Map.of()
+                : productRepository.findFlashSaleStock(documents.stream().map(ProductDocument::getId).toList());
+        if (stock.isEmpty()) {
+            return documents;
+        }
+        return documents.stream()
+                .map(document -> stock.containsKey(document.getId())
+                        ? document.withStockQuantity(stock.get(document.getId()))
+                        : document)
+                .toList();
+    }
+}
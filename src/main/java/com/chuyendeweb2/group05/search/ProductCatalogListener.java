@@ -0,0 +1,25 @@
+package com.chuyendeweb2.group05.search;
+
+/**
+ * Implemented by in-memory structures that mirror the ACTIVE product catalog.
+ * {@link ProductCatalogDispatcher} feeds every implementation on startup and
+ * after each committed product change.
+ */
+public interface ProductCatalogListener {
+
+    /**
+     * Called for a product that is ACTIVE after the change (new or updated).
+     */
+    void onProductUpserted(ProductDocument document);
+
+    /**
+     * Called for a product that was deleted or is no longer ACTIVE.
+     */
+    void onProductRemoved(Long productId);
+
+    /**
+     * Called once after the initial catalog load has completed.
+     */
+    default void onCatalogLoaded() {
+    }
+}
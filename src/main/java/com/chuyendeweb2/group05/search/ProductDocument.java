@@ -0,0 +1,32 @@
+package com.chuyendeweb2.group05.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.With;
+
+import java.math.BigDecimal;
+
+import com.chuyendeweb2.group05.enums.ProductStatus;
+
+/**
+ * Flat, read-only view of the product columns the in-memory catalog indexes
+ * need. Loaded with a constructor expression so no associations are touched.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductDocument {
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Long categoryId;
+    private final BigDecimal price;
+    @With
+    private final Integer stockQuantity;
+    private final ProductStatus status;
+    // Reviews plus favorites, used to rank suggestions
+    private final Integer popularity;
+
+    public boolean isActive() {
+        return status == ProductStatus.ACTIVE;
+    }
+}
@@ -0,0 +1,260 @@
+package com.chuyendeweb2.group05.search;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.chuyendeweb2.group05.dto.PriceBucketCountDTO;
+import com.chuyendeweb2.group05.dto.ProductFacetsDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bitmaps of ACTIVE products per category, price bucket and stock state, with
+ * the product ID as bit index. Facet counts for a result set are computed by
+ * intersecting these bitmaps in memory instead of running a GROUP BY per facet.
+ * <p>
+ * Each facet is counted with every filter applied except its own, so a client
+ * can see how many results selecting another value of that facet would give.
+ */
+@Component
+public class ProductFacetIndex implements ProductCatalogListener {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet active = new BitSet();
+    private final BitSet inStock = new BitSet();
+    private final Map<Long, BitSet> byCategory = new HashMap<>();
+    private final BitSet[] byPriceBucket;
+    private final Map<Integer, IndexedProduct> products = new HashMap<>();
+    // Ascending lower bounds of price buckets 1..n; bucket 0 starts at zero
+    private final BigDecimal[] bucketBounds;
+    private volatile boolean ready;
+
+    public ProductFacetIndex(@Value("${product.facets.price-buckets}") List<BigDecimal> bucketBounds) {
+        this.bucketBounds = bucketBounds.stream().sorted().toArray(BigDecimal[]::new);
+        this.byPriceBucket = new BitSet[this.bucketBounds.length + 1];
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            byPriceBucket[i] = new BitSet();
+        }
+    }
+
+    @Override
+    public void onProductUpserted(ProductDocument document) {
+        int bit = Math.toIntExact(document.getId());
+        int stock = document.getStockQuantity() != null ? document.getStockQuantity() : 0;
+        IndexedProduct indexed = new IndexedProduct(document.getCategoryId(), document.getPrice(), stock,
+                bucketOf(document.getPrice()));
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(bit);
+            products.put(bit, indexed);
+            active.set(bit);
+            inStock.set(bit, stock > 0);
+            byCategory.computeIfAbsent(indexed.categoryId, id -> new BitSet()).set(bit);
+            byPriceBucket[indexed.bucket].set(bit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(Math.toIntExact(productId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Counts category, price bucket and stock facets over ACTIVE products.
+     *
+     * @param keywordHits IDs matching the keyword, or null when there is no keyword
+     * @param criteria    category, price and stock filters (the keyword is ignored)
+     */
+    public ProductFacetsDTO facets(Collection<Long> keywordHits, ProductSearchCriteria criteria) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) active.clone();
+            if (keywordHits != null) {
+                BitSet hits = new BitSet();
+                keywordHits.forEach(id -> hits.set(Math.toIntExact(id)));
+                base.and(hits);
+            }
+
+            BitSet categoryMask = categoryMask(criteria);
+            BitSet priceMask = priceMask(base, criteria);
+            BitSet stockMask = stockMask(base, criteria);
+
+            Map<Long, Integer> categories = new LinkedHashMap<>();
+            BitSet forCategories = intersect(base, priceMask, stockMask);
+            byCategory.forEach((categoryId, members) -> {
+                int count = intersect(forCategories, members).cardinality();
+                if (count > 0) {
+                    categories.put(categoryId, count);
+                }
+            });
+
+            List<PriceBucketCountDTO> priceBuckets = new ArrayList<>(byPriceBucket.length);
+            BitSet forPrice = intersect(base, categoryMask, stockMask);
+            for (int i = 0; i < byPriceBucket.length; i++) {
+                priceBuckets.add(PriceBucketCountDTO.builder()
+                        .from(i == 0 ? null : bucketBounds[i - 1])
+                        .to(i == bucketBounds.length ? null : bucketBounds[i])
+                        .count(intersect(forPrice, byPriceBucket[i]).cardinality())
+                        .build());
+            }
+
+            BitSet forStock = intersect(base, categoryMask, priceMask);
+            int inStockCount = intersect(forStock, inStock).cardinality();
+
+            return ProductFacetsDTO.builder()
+                    .total(intersect(forStock, stockMask).cardinality())
+                    .categories(categories)
+                    .priceBuckets(priceBuckets)
+                    .inStock(inStockCount)
+                    .outOfStock(forStock.cardinality() - inStockCount)
+                    .build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Must be called with the read lock held; null means no category filter
+    private BitSet categoryMask(ProductSearchCriteria criteria) {
+        if (criteria.getCategoryIds() == null) {
+            return null;
+        }
+        BitSet mask = new BitSet();
+        for (Long categoryId : criteria.getCategoryIds()) {
+            BitSet members = byCategory.get(categoryId);
+            if (members != null) {
+                mask.or(members);
+            }
+        }
+        return mask;
+    }
+
+    // Must be called with the read lock held; null means no price filter
+    private BitSet priceMask(BitSet base, ProductSearchCriteria criteria) {
+        BigDecimal min = criteria.getMinPrice();
+        BigDecimal max = criteria.getMaxPrice();
+        if (min == null && max == null) {
+            return null;
+        }
+        BitSet mask = new BitSet();
+        for (int i = 0; i < byPriceBucket.length; i++) {
+            BigDecimal from = i == 0 ? null : bucketBounds[i - 1];
+            BigDecimal to = i == bucketBounds.length ? null : bucketBounds[i];
+            boolean disjoint = (max != null && from != null && from.compareTo(max) > 0)
+                    || (min != null && to != null && to.compareTo(min) <= 0);
+            if (disjoint) {
+                continue;
+            }
+            boolean contained = (min == null || (from != null && from.compareTo(min) >= 0))
+                    && (max == null || (to != null && to.compareTo(max) <= 0));
+            if (contained) {
+                mask.or(byPriceBucket[i]);
+                continue;
+            }
+            // Bucket straddles a bound: check the members that are still candidates
+            BitSet candidates = intersect(base, byPriceBucket[i]);
+            for (int bit = candidates.nextSetBit(0); bit >= 0; bit = candidates.nextSetBit(bit + 1)) {
+                BigDecimal price = products.get(bit).price;
+                if ((min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0)) {
+                    mask.set(bit);
+                }
+            }
+        }
+        return mask;
+    }
+
+    // Must be called with the read lock held; null means no stock filter
+    private BitSet stockMask(BitSet base, ProductSearchCriteria criteria) {
+        Integer min = criteria.getMinStock();
+        Integer max = criteria.getMaxStock();
+        if (min == null && max == null) {
+            return null;
+        }
+        if (min != null && min == 1 && max == null) {
+            return inStock;
+        }
+        BitSet mask = new BitSet();
+        for (int bit = base.nextSetBit(0); bit >= 0; bit = base.nextSetBit(bit + 1)) {
+            int stock = products.get(bit).stockQuantity;
+            if ((min == null || stock >= min) && (max == null || stock <= max)) {
+                mask.set(bit);
+            }
+        }
+        return mask;
+    }
+
+    private int bucketOf(BigDecimal price) {
+        int bucket = 0;
+        while (bucket < bucketBounds.length && price.compareTo(bucketBounds[bucket]) >= 0) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    // Must be called with the write lock held
+    private void removeInternal(int bit) {
+        IndexedProduct previous = products.remove(bit);
+        if (previous == null) {
+            return;
+        }
+        active.clear(bit);
+        inStock.clear(bit);
+        byPriceBucket[previous.bucket].clear(bit);
+        BitSet members = byCategory.get(previous.categoryId);
+        if (members != null) {
+            members.clear(bit);
+            if (members.isEmpty()) {
+                byCategory.remove(previous.categoryId);
+            }
+        }
+    }
+
+    // Intersection of the given sets; null arguments are treated as "everything"
+    private static BitSet intersect(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            if (other != null) {
+                result.and(other);
+            }
+        }
+        return result;
+    }
+
+    private static class IndexedProduct {
+        private final Long categoryId;
+        private final BigDecimal price;
+        private final int stockQuantity;
+        private final int bucket;
+
+        private IndexedProduct(Long categoryId, BigDecimal price, int stockQuantity, int bucket) {
+            this.categoryId = categoryId;
+            this.price = price;
+            this.stockQuantity = stockQuantity;
+            this.bucket = bucket;
+        }
+    }
+}
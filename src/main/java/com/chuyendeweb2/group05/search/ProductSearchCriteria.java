@@ -0,0 +1,37 @@
+package com.chuyendeweb2.group05.search;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * Filters applied to in-memory catalog lookups. Null fields are not filtered.
+ */
+@Getter
+@Builder
+public class ProductSearchCriteria {
+    private final String keyword;
+    private final Set<Long> categoryIds;
+    private final BigDecimal minPrice;
+    private final BigDecimal maxPrice;
+    private final Integer minStock;
+    private final Integer maxStock;
+
+    public boolean matches(Long categoryId, BigDecimal price, int stockQuantity) {
+        if (categoryIds != null && !categoryIds.contains(categoryId)) {
+            return false;
+        }
+        if (minPrice != null && price.compareTo(minPrice) < 0) {
+            return false;
+        }
+        if (maxPrice != null && price.compareTo(maxPrice) > 0) {
+            return false;
+        }
+        if (minStock != null && stockQuantity < minStock) {
+            return false;
+        }
+        return maxStock == null || stockQuantity <= maxStock;
+    }
+}
@@ -0,0 +1,221 @@
+package com.chuyendeweb2.group05.search;
+
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over the name and description of ACTIVE products,
+ * ranked with BM25. Replaces the {@code LIKE '%kw%'} scans for keyword search.
+ * <p>
+ * All query terms must match; the last term also matches as a prefix so
+ * partially typed words still find results. Text is folded by
+ * {@link VietnameseAnalyzer}, so queries match with or without diacritics.
+ */
+@Component
+public class ProductSearchIndex implements ProductCatalogListener {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    // Name tokens count more than description tokens
+    private static final int NAME_WEIGHT = 3;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, IndexedProduct> products = new HashMap<>();
+    private long totalLength;
+    private volatile boolean ready;
+
+    @Override
+    public void onProductUpserted(ProductDocument document) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : tokenize(document.getName())) {
+            termFrequencies.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : tokenize(document.getDescription())) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+        int length = termFrequencies.values().stream().mapToInt(Integer::intValue).sum();
+        IndexedProduct indexed = new IndexedProduct(termFrequencies, length, document.getCategoryId(),
+                document.getPrice(), document.getStockQuantity());
+
+        lock.writeLock().lock();
+        try {
+            removeInternal(document.getId());
+            products.put(document.getId(), indexed);
+            totalLength += length;
+            termFrequencies.forEach((term, tf) -> postings
+                    .computeIfAbsent(term, t -> new HashMap<>())
+                    .put(document.getId(), tf));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded() {
+        ready = true;
+    }
+
+    /**
+     * True once the initial catalog load has finished. Until then callers
+     * should fall back to database search.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Returns the IDs of ACTIVE products matching the criteria, best match
+     * first.
+     *
+     * @param criteria keyword and optional category/price/stock filters
+     * @param limit    maximum number of IDs to return
+     */
+    public List<Long> search(ProductSearchCriteria criteria, int limit) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = score(criteria.getKeyword());
+
+            List<Map.Entry<Long, Double>> hits = new ArrayList<>();
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                IndexedProduct product = products.get(entry.getKey());
+                if (criteria.matches(product.categoryId, product.price, product.stockQuantity)) {
+                    hits.add(entry);
+                }
+            }
+            hits.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey()));
+
+            List<Long> ids = new ArrayList<>(Math.min(limit, hits.size()));
+            for (int i = 0; i < hits.size() && i < limit; i++) {
+                ids.add(hits.get(i).getKey());
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of every ACTIVE product matching the keyword, unranked
+     * and without a hit limit.
+     */
+    public Set<Long> matchingIds(String keyword) {
+        lock.readLock().lock();
+        try {
+            return new HashSet<>(score(keyword).keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Must be called with the read lock held
+    private Map<Long, Double> score(String keyword) {
+        List<String> terms = VietnameseAnalyzer.tokenizeQuery(keyword);
+        Map<Long, Double> scores = new HashMap<>();
+        for (int i = 0; i < terms.size(); i++) {
+            boolean prefix = i == terms.size() - 1;
+            Map<Long, Double> termScores = scoreTerm(terms.get(i), prefix);
+            if (i == 0) {
+                scores = termScores;
+            } else {
+                Map<Long, Double> intersection = new HashMap<>();
+                for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                    Double score = termScores.get(entry.getKey());
+                    if (score != null) {
+                        intersection.put(entry.getKey(), entry.getValue() + score);
+                    }
+                }
+                scores = intersection;
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        return scores;
+    }
+
+    // Must be called with the read lock held
+    private Map<Long, Double> scoreTerm(String term, boolean prefix) {
+        Map<Long, Double> scores = new HashMap<>();
+        NavigableMap<String, Map<Long, Integer>> matches = prefix
+                ? postings.subMap(term, true, term + Character.MAX_VALUE, false)
+                : postings.subMap(term, true, term, true);
+
+        int expansions = 0;
+        double averageLength = products.isEmpty() ? 1.0 : (double) totalLength / products.size();
+        for (Map<Long, Integer> posting : matches.values()) {
+            if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+            double idf = Math.log(1.0 + (products.size() - posting.size() + 0.5) / (posting.size() + 0.5));
+            for (Map.Entry<Long, Integer> entry : posting.entrySet()) {
+                int tf = entry.getValue();
+                int length = products.get(entry.getKey()).length;
+                double score = idf * (tf * (K1 + 1)) / (tf + K1 * (1 - B + B * length / averageLength));
+                scores.merge(entry.getKey(), score, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    // Must be called with the write lock held
+    private void removeInternal(Long productId) {
+        IndexedProduct previous = products.remove(productId);
+        if (previous == null) {
+            return;
+        }
+        totalLength -= previous.length;
+        for (String term : previous.termFrequencies.keySet()) {
+            Map<Long, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        return VietnameseAnalyzer.tokenize(text);
+    }
+
+    private static class IndexedProduct {
+        private final Map<String, Integer> termFrequencies;
+        private final int length;
+        private final Long categoryId;
+        private final BigDecimal price;
+        private final int stockQuantity;
+
+        private IndexedProduct(Map<String, Integer> termFrequencies, int length, Long categoryId,
+                BigDecimal price, Integer stockQuantity) {
+            this.termFrequencies = termFrequencies;
+            this.length = length;
+            this.categoryId = categoryId;
+            this.price = price;
+            this.stockQuantity = stockQuantity != null ? stockQuantity : 0;
+        }
+    }
+}
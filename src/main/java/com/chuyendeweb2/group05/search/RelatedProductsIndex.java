@@ -0,0 +1,329 @@
+package com.chuyendeweb2.group05.search;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.chuyendeweb2.group05.util.ScoredIds;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Precomputed "related products" table: for every ACTIVE product, the top-N
+ * most similar ACTIVE products by cosine similarity of TF-IDF vectors over
+ * name and description. Lookups are a single map read.
+ * <p>
+ * The table is rebuilt in the background on a fork-join pool after the
+ * catalog loads and on a schedule. Between rebuilds a changed product gets
+ * its own list recomputed against the last model and is offered to the lists
+ * of its neighbours; removed products are filtered out on read.
+ */
+@Component
+@Slf4j
+public class RelatedProductsIndex implements ProductCatalogListener {
+
+    // Name tokens count more than description tokens
+    private static final int NAME_WEIGHT = 3;
+    // Terms shared by more products than this are too common to find candidates with
+    private static final int MAX_POSTINGS_SCANNED = 5000;
+    private static final int LEAF_SIZE = 256;
+
+    private final int topN;
+    private final ForkJoinPool pool;
+    private final Map<Long, ProductText> texts = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Model model;
+    private volatile boolean loaded;
+
+    public RelatedProductsIndex(
+            @Value("${product.related.top-n:20}") int topN,
+            @Value("${product.related.parallelism:0}") int parallelism) {
+        this.topN = topN;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public void onProductUpserted(ProductDocument document) {
+        Map<String, Integer> termFrequencies = new HashMap<>();
+        for (String token : ProductSearchIndex.tokenize(document.getName())) {
+            termFrequencies.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : ProductSearchIndex.tokenize(document.getDescription())) {
+            termFrequencies.merge(token, 1, Integer::sum);
+        }
+        ProductText text = new ProductText(document.getId(), document.getCategoryId(), termFrequencies);
+        texts.put(document.getId(), text);
+
+        Model current = model;
+        if (loaded && current != null) {
+            pool.execute(() -> updateIncrementally(current, text));
+        }
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        texts.remove(productId);
+        Model current = model;
+        if (current != null) {
+            current.neighbors.remove(productId);
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded() {
+        loaded = true;
+        pool.execute(this::rebuild);
+    }
+
+    @Scheduled(cron = "${product.related.rebuild-cron:0 15 * * * *}")
+    public void scheduledRebuild() {
+        if (loaded) {
+            rebuild();
+        }
+    }
+
+    public boolean isReady() {
+        return model != null;
+    }
+
+    /**
+     * Returns up to {@code limit} IDs of ACTIVE products most similar to the
+     * given one, best first, optionally restricted to a category. Empty when
+     * the product has not been indexed yet.
+     */
+    public List<Long> related(Long productId, Long categoryId, int limit) {
+        Model current = model;
+        ScoredIds neighbors = current != null ? current.neighbors.get(productId) : null;
+        if (neighbors == null) {
+            return List.of();
+        }
+        List<Long> ids = new ArrayList<>(Math.min(limit, neighbors.size()));
+        for (int i = 0; i < neighbors.size() && ids.size() < limit; i++) {
+            ProductText text = texts.get(neighbors.idAt(i));
+            if (text != null && (categoryId == null || categoryId.equals(text.categoryId))) {
+                ids.add(neighbors.idAt(i));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Recomputes the whole table from the current catalog. Concurrent calls
+     * are skipped while a rebuild is running.
+     */
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long start = System.currentTimeMillis();
+            Model built = buildModel(new ArrayList<>(texts.values()));
+            pool.invoke(new NeighborTask(built, 0, built.docIds.length));
+            model = built;
+            log.info("Rebuilt related products for {} products in {} ms", built.docIds.length,
+                    System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild related products", e);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private Model buildModel(List<ProductText> snapshot) {
+        int n = snapshot.size();
+        Map<String, Integer> termIds = new HashMap<>();
+        List<Integer> documentFrequencies = new ArrayList<>();
+        for (ProductText text : snapshot) {
+            for (String term : text.termFrequencies.keySet()) {
+                int termId = termIds.computeIfAbsent(term, t -> {
+                    documentFrequencies.add(0);
+                    return documentFrequencies.size() - 1;
+                });
+                documentFrequencies.set(termId, documentFrequencies.get(termId) + 1);
+            }
+        }
+
+        float[] idf = new float[termIds.size()];
+        for (int t = 0; t < idf.length; t++) {
+            idf[t] = (float) (Math.log((n + 1.0) / (documentFrequencies.get(t) + 1.0)) + 1.0);
+        }
+
+        long[] docIds = new long[n];
+        Vector[] vectors = new Vector[n];
+        int[] postingLengths = new int[idf.length];
+        for (int d = 0; d < n; d++) {
+            docIds[d] = snapshot.get(d).id;
+            vectors[d] = vectorize(snapshot.get(d), termIds, idf);
+            for (int term : vectors[d].terms) {
+                postingLengths[term]++;
+            }
+        }
+
+        int[][] postingDocs = new int[idf.length][];
+        float[][] postingWeights = new float[idf.length][];
+        for (int t = 0; t < idf.length; t++) {
+            postingDocs[t] = new int[postingLengths[t]];
+            postingWeights[t] = new float[postingLengths[t]];
+        }
+        int[] fill = new int[idf.length];
+        for (int d = 0; d < n; d++) {
+            Vector vector = vectors[d];
+            for (int i = 0; i < vector.terms.length; i++) {
+                int t = vector.terms[i];
+                postingDocs[t][fill[t]] = d;
+                postingWeights[t][fill[t]++] = vector.weights[i];
+            }
+        }
+        return new Model(termIds, idf, docIds, vectors, postingDocs, postingWeights);
+    }
+
+    // Log-scaled, IDF-weighted and L2-normalized; terms unknown to the model are dropped
+    private static Vector vectorize(ProductText text, Map<String, Integer> termIds, float[] idf) {
+        List<int[]> known = new ArrayList<>();
+        for (Map.Entry<String, Integer> entry : text.termFrequencies.entrySet()) {
+            Integer termId = termIds.get(entry.getKey());
+            if (termId != null) {
+                known.add(new int[] { termId, entry.getValue() });
+            }
+        }
+        int[] terms = new int[known.size()];
+        float[] weights = new float[known.size()];
+        double norm = 0;
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = known.get(i)[0];
+            weights[i] = (float) ((1 + Math.log(known.get(i)[1])) * idf[terms[i]]);
+            norm += weights[i] * weights[i];
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < weights.length; i++) {
+                weights[i] *= scale;
+            }
+        }
+        return new Vector(terms, weights);
+    }
+
+    private void updateIncrementally(Model current, ProductText text) {
+        Vector vector = vectorize(text, current.termIds, current.idf);
+        ScoredIds own = current.topNeighbors(vector, text.id, new float[current.docIds.length],
+                new int[current.docIds.length], topN);
+        current.neighbors.put(text.id, own);
+        // Similarity is symmetric: offer the product to the lists of its neighbours
+        for (int i = 0; i < own.size(); i++) {
+            long neighborId = own.idAt(i);
+            float score = own.scoreAt(i);
+            current.neighbors.computeIfPresent(neighborId, (id, list) -> list.offer(text.id, score, topN));
+        }
+    }
+
+    private class NeighborTask extends RecursiveAction {
+        private final Model built;
+        private final int from;
+        private final int to;
+
+        private NeighborTask(Model built, int from, int to) {
+            this.built = built;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new NeighborTask(built, from, mid), new NeighborTask(built, mid, to));
+                return;
+            }
+            float[] scores = new float[built.docIds.length];
+            int[] touched = new int[built.docIds.length];
+            for (int d = from; d < to; d++) {
+                long id = built.docIds[d];
+                built.neighbors.put(id, built.topNeighbors(built.vectors[d], id, scores, touched, topN));
+            }
+        }
+    }
+
+    private static class Model {
+        private final Map<String, Integer> termIds;
+        private final float[] idf;
+        private final long[] docIds;
+        private final Vector[] vectors;
+        private final int[][] postingDocs;
+        private final float[][] postingWeights;
+        private final Map<Long, ScoredIds> neighbors = new ConcurrentHashMap<>();
+
+        private Model(Map<String, Integer> termIds, float[] idf, long[] docIds, Vector[] vectors,
+                int[][] postingDocs, float[][] postingWeights) {
+            this.termIds = termIds;
+            this.idf = idf;
+            this.docIds = docIds;
+            this.vectors = vectors;
+            this.postingDocs = postingDocs;
+            this.postingWeights = postingWeights;
+        }
+
+        // scores and touched are scratch buffers sized to the catalog; scores is left zeroed
+        private ScoredIds topNeighbors(Vector vector, long selfId, float[] scores, int[] touched, int topN) {
+            int touchedCount = 0;
+            for (int i = 0; i < vector.terms.length; i++) {
+                int[] docs = postingDocs[vector.terms[i]];
+                if (docs.length > MAX_POSTINGS_SCANNED) {
+                    continue;
+                }
+                float[] weights = postingWeights[vector.terms[i]];
+                for (int p = 0; p < docs.length; p++) {
+                    if (scores[docs[p]] == 0) {
+                        touched[touchedCount++] = docs[p];
+                    }
+                    scores[docs[p]] += vector.weights[i] * weights[p];
+                }
+            }
+
+            ScoredIds best = ScoredIds.EMPTY;
+            for (int i = 0; i < touchedCount; i++) {
+                int d = touched[i];
+                if (docIds[d] != selfId) {
+                    best = best.offer(docIds[d], scores[d], topN);
+                }
+                scores[d] = 0;
+            }
+            return best;
+        }
+    }
+
+    private static class Vector {
+        private final int[] terms;
+        private final float[] weights;
+
+        private Vector(int[] terms, float[] weights) {
+            this.terms = terms;
+            this.weights = weights;
+        }
+    }
+
+    private static class ProductText {
+        private final long id;
+        private final Long categoryId;
+        private final Map<String, Integer> termFrequencies;
+
+        private ProductText(long id, Long categoryId, Map<String, Integer> termFrequencies) {
+            this.id = id;
+            this.categoryId = categoryId;
+            this.termFrequencies = termFrequencies;
+        }
+    }
+}
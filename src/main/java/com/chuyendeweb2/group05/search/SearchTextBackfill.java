@@ -0,0 +1,49 @@
+package com.chuyendeweb2.group05.search;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.chuyendeweb2.group05.entity.meta.Product;
+import com.chuyendeweb2.group05.repo.ProductRepository;
+
+import java.util.List;
+
+/**
+ * Fills {@code products.search_text} for rows written before the column
+ * existed. New and edited products get it from the entity callbacks, so after
+ * the first run this finds nothing to do.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SearchTextBackfill {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        long lastId = 0L;
+        int updated = 0;
+        List<Object[]> batch;
+        do {
+            batch = productRepository.findMissingSearchTextAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            for (Object[] row : batch) {
+                lastId = (Long) row[0];
+                updated += productRepository.updateSearchText(lastId,
+                        Product.searchTextOf((String) row[1], (String) row[2]));
+            }
+        } while (batch.size() == BATCH_SIZE);
+
+        if (updated > 0) {
+            log.info("Backfilled search text of {} products in {} ms", updated,
+                    System.currentTimeMillis() - start);
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package com.chuyendeweb2.group05.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.chuyendeweb2.group05.util.LongIntHashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typo-tolerant lookup over the names of ACTIVE products, used when exact
+ * keyword search finds nothing. "dien thaoi" still finds "Điện thoại".
+ * <p>
+ * Every distinct word of the catalog's product names is split into character
+ * trigrams. A query word gathers candidate words sharing enough trigrams with
+ * it, and only those are verified with a bounded edit distance (Levenshtein
+ * plus swaps of adjacent characters): one edit for words of three to five
+ * characters, two for longer ones, none for shorter ones. Postings are
+ * primitive arrays in an immutable snapshot; changes mark the index dirty and
+ * a background task swaps in a fresh snapshot.
+ */
+@Component
+@Slf4j
+public class TrigramIndex implements ProductCatalogListener {
+
+    // Closest vocabulary words kept per query word
+    private static final int MAX_CANDIDATE_WORDS = 64;
+    private static final int MAX_WORD_LENGTH = 64;
+    private static final char PADDING = ' ';
+
+    private final Map<Long, IndexedName> products = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private volatile boolean loaded;
+    private volatile Snapshot snapshot;
+
+    @Override
+    public void onProductUpserted(ProductDocument document) {
+        String[] words = VietnameseAnalyzer.tokenize(document.getName()).stream()
+                .filter(word -> word.length() <= MAX_WORD_LENGTH)
+                .distinct()
+                .toArray(String[]::new);
+        int popularity = document.getPopularity() != null ? document.getPopularity() : 0;
+        products.put(document.getId(), new IndexedName(words, popularity));
+        dirty = true;
+    }
+
+    @Override
+    public void onProductRemoved(Long productId) {
+        if (products.remove(productId) != null) {
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void onCatalogLoaded() {
+        loaded = true;
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${product.fuzzy.rebuild-delay-ms:5000}")
+    public void rebuildIfDirty() {
+        if (loaded && dirty) {
+            rebuild();
+        }
+    }
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    /**
+     * Returns up to {@code limit} IDs of ACTIVE products whose name has a word
+     * within the edit budget of every query word, closest and then most
+     * popular first.
+     */
+    public List<Long> search(String keyword, int limit) {
+        Snapshot current = snapshot;
+        List<String> tokens = VietnameseAnalyzer.tokenizeQuery(keyword);
+        if (current == null || tokens.isEmpty()) {
+            return List.of();
+        }
+
+        // Product ID -> summed edit distance over the query words matched so far
+        Map<Long, Integer> distances = null;
+        for (String token : tokens) {
+            Map<Long, Integer> tokenDistances = new HashMap<>();
+            current.forEachCandidate(token, (word, distance) -> {
+                for (long productId : current.wordProducts[word]) {
+                    tokenDistances.merge(productId, distance, Math::min);
+                }
+            });
+            if (distances == null) {
+                distances = tokenDistances;
+            } else {
+                Map<Long, Integer> intersection = new HashMap<>();
+                for (Map.Entry<Long, Integer> entry : distances.entrySet()) {
+                    Integer distance = tokenDistances.get(entry.getKey());
+                    if (distance != null) {
+                        intersection.put(entry.getKey(), entry.getValue() + distance);
+                    }
+                }
+                distances = intersection;
+            }
+            if (distances.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        List<long[]> hits = new ArrayList<>(distances.size());
+        for (Map.Entry<Long, Integer> entry : distances.entrySet()) {
+            // Products removed since the snapshot was built are dropped here
+            IndexedName name = products.get(entry.getKey());
+            if (name != null) {
+                hits.add(new long[] { entry.getKey(), entry.getValue(), name.popularity });
+            }
+        }
+        hits.sort((a, b) -> a[1] != b[1] ? Long.compare(a[1], b[1])
+                : a[2] != b[2] ? Long.compare(b[2], a[2])
+                : Long.compare(a[0], b[0]));
+
+        List<Long> ids = new ArrayList<>(Math.min(limit, hits.size()));
+        for (int i = 0; i < hits.size() && i < limit; i++) {
+            ids.add(hits.get(i)[0]);
+        }
+        return ids;
+    }
+
+    private void rebuild() {
+        // Cleared before reading so changes made during the build trigger another one
+        dirty = false;
+        long start = System.currentTimeMillis();
+        snapshot = new Snapshot(new ArrayList<>(products.entrySet()));
+        log.debug("Rebuilt trigram index with {} words in {} ms", snapshot.words.length,
+                System.currentTimeMillis() - start);
+    }
+
+    static int maxEdits(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    // Distinct trigrams of the word padded with one space on each side, sorted
+    static long[] trigrams(String word) {
+        String padded = PADDING + word + PADDING;
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = (long) padded.charAt(i) << 32 | (long) padded.charAt(i + 1) << 16 | padded.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    /**
+     * Edit distance between {@code a} and {@code b} counting insertions,
+     * deletions, substitutions and swaps of adjacent characters, or
+     * {@code maxDistance + 1} as soon as it is known to exceed it.
+     */
+    static int boundedEditDistance(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], maxDistance + 1);
+    }
+
+    @FunctionalInterface
+    private interface CandidateConsumer {
+        void accept(int word, int distance);
+    }
+
+    private static class Snapshot {
+        private final String[] words;
+        // Product IDs whose name contains each word
+        private final long[][] wordProducts;
+        // Trigram -> trigram ordinal + 1; postings hold ascending word ordinals
+        private final LongIntHashMap trigramOrdinals = new LongIntHashMap(1024);
+        private final int[][] trigramWords;
+
+        private Snapshot(List<Map.Entry<Long, IndexedName>> entries) {
+            Map<String, Integer> wordOrdinals = new HashMap<>();
+            List<String> vocabulary = new ArrayList<>();
+            int[] productCounts = new int[16];
+            for (Map.Entry<Long, IndexedName> entry : entries) {
+                for (String word : entry.getValue().words) {
+                    int ordinal = wordOrdinals.computeIfAbsent(word, w -> {
+                        vocabulary.add(w);
+                        return vocabulary.size() - 1;
+                    });
+                    if (ordinal == productCounts.length) {
+                        productCounts = Arrays.copyOf(productCounts, ordinal * 2);
+                    }
+                    productCounts[ordinal]++;
+                }
+            }
+
+            words = vocabulary.toArray(new String[0]);
+            wordProducts = new long[words.length][];
+            for (int w = 0; w < words.length; w++) {
+                wordProducts[w] = new long[productCounts[w]];
+            }
+            int[] fill = new int[words.length];
+            for (Map.Entry<Long, IndexedName> entry : entries) {
+                for (String word : entry.getValue().words) {
+                    int w = wordOrdinals.get(word);
+                    wordProducts[w][fill[w]++] = entry.getKey();
+                }
+            }
+
+            long[][] wordTrigrams = new long[words.length][];
+            List<Integer> postingLengths = new ArrayList<>();
+            for (int w = 0; w < words.length; w++) {
+                wordTrigrams[w] = trigrams(words[w]);
+                for (long gram : wordTrigrams[w]) {
+                    int ordinal = trigramOrdinals.get(gram) - 1;
+                    if (ordinal < 0) {
+                        ordinal = postingLengths.size();
+                        postingLengths.add(0);
+                        trigramOrdinals.addTo(gram, ordinal + 1);
+                    }
+                    postingLengths.set(ordinal, postingLengths.get(ordinal) + 1);
+                }
+            }
+            trigramWords = new int[postingLengths.size()][];
+            for (int t = 0; t < trigramWords.length; t++) {
+                trigramWords[t] = new int[postingLengths.get(t)];
+            }
+            int[] postingFill = new int[trigramWords.length];
+            for (int w = 0; w < words.length; w++) {
+                for (long gram : wordTrigrams[w]) {
+                    int t = trigramOrdinals.get(gram) - 1;
+                    trigramWords[t][postingFill[t]++] = w;
+                }
+            }
+        }
+
+        // Vocabulary words within the edit budget of the token, closest first
+        private void forEachCandidate(String token, CandidateConsumer consumer) {
+            if (token.length() > MAX_WORD_LENGTH) {
+                return;
+            }
+            int maxEdits = maxEdits(token.length());
+            long[] grams = trigrams(token);
+            // An edit changes at most three trigrams, a swap of adjacent characters four
+            int required = Math.max(1, grams.length - 4 * maxEdits);
+
+            short[] shared = new short[words.length];
+            int[] touched = new int[Math.min(words.length, 1024)];
+            int touchedCount = 0;
+            for (long gram : grams) {
+                int t = trigramOrdinals.get(gram) - 1;
+                if (t < 0) {
+                    continue;
+                }
+                for (int w : trigramWords[t]) {
+                    if (shared[w]++ == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touched.length * 2);
+                        }
+                        touched[touchedCount++] = w;
+                    }
+                }
+            }
+
+            List<int[]> candidates = new ArrayList<>();
+            for (int i = 0; i < touchedCount; i++) {
+                int w = touched[i];
+                if (shared[w] >= required) {
+                    int distance = boundedEditDistance(token, words[w], maxEdits);
+                    if (distance <= maxEdits) {
+                        candidates.add(new int[] { w, distance });
+                    }
+                }
+            }
+            candidates.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1])
+                    : Integer.compare(wordProducts[b[0]].length, wordProducts[a[0]].length));
+            for (int i = 0; i < candidates.size() && i < MAX_CANDIDATE_WORDS; i++) {
+                consumer.accept(candidates.get(i)[0], candidates.get(i)[1]);
+            }
+        }
+    }
+
+    private static class IndexedName {
+        private final String[] words;
+        private final int popularity;
+
+        private IndexedName(String[] words, int popularity) {
+            this.words = words;
+            this.popularity = popularity;
+        }
+    }
+}
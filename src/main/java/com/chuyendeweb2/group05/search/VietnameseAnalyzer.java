@@ -0,0 +1,104 @@
+package com.chuyendeweb2.group05.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Normalizes Vietnamese text so that input typed with and without diacritics
+ * matches: "Điện Thoại" and "dien thoai" both analyze to {@code dien thoai}.
+ * <p>
+ * Folding lowercases, decomposes to NFD, drops combining marks and maps
+ * đ/Đ to d. Tokens are runs of letters and digits; a short list of function
+ * words is dropped. Each call makes one pass over the decomposed text into a
+ * single buffer.
+ */
+public final class VietnameseAnalyzer {
+
+    // Folded forms of common function words that carry no meaning in product search
+    private static final Set<String> STOPWORDS = Set.of(
+            "va", "cua", "voi", "cac", "nhung", "mot", "nay", "duoc", "thi", "ma", "la",
+            "the", "and", "of", "for", "with");
+
+    private VietnameseAnalyzer() {
+    }
+
+    /**
+     * Lowercased text without diacritics, with everything else kept as is.
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        char[] buffer = new char[decomposed.length()];
+        int length = 0;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            buffer[length++] = foldChar(c);
+        }
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Folded tokens of {@code text}, without stopwords.
+     */
+    public static List<String> tokenize(String text) {
+        return tokenize(text, false);
+    }
+
+    /**
+     * Folded tokens of a search query. Stopwords are dropped except for the
+     * last token, which may be the prefix of a longer word still being typed.
+     */
+    public static List<String> tokenizeQuery(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * Folded tokens joined by single spaces; the form stored in
+     * {@code products.search_text}.
+     */
+    public static String analyze(String text) {
+        return String.join(" ", tokenize(text));
+    }
+
+    private static List<String> tokenize(String text, boolean keepLast) {
+        List<String> tokens = new ArrayList<>();
+        String folded = fold(text);
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean letterOrDigit = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                String token = folded.substring(start, i);
+                boolean last = keepLast && i == lastTokenEnd(folded);
+                if (last || !STOPWORDS.contains(token)) {
+                    tokens.add(token);
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static int lastTokenEnd(String folded) {
+        int end = folded.length();
+        while (end > 0 && !Character.isLetterOrDigit(folded.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static char foldChar(char c) {
+        if (c == 'đ' || c == 'Đ') {
+            return 'd';
+        }
+        return Character.toLowerCase(c);
+    }
+}
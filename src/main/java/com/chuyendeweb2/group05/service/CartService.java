@@ -4,36 +4,52 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.chuyendeweb2.group05.cart.WriteBehindCartStore;
+import com.chuyendeweb2.group05.cart.WriteBehindCartStore.CartLine;
+
+import com.chuyendeweb2.group05.dto.CartBatchRequestDTO;
 import com.chuyendeweb2.group05.dto.CartItemRequestDTO;
 import com.chuyendeweb2.group05.dto.CartItemResponseDTO;
+import com.chuyendeweb2.group05.dto.CartOperationDTO;
 import com.chuyendeweb2.group05.dto.CartResponseDTO;
 import com.chuyendeweb2.group05.entity.meta.Cart;
 import com.chuyendeweb2.group05.entity.meta.CartItem;
 import com.chuyendeweb2.group05.entity.meta.Product;
 import com.chuyendeweb2.group05.entity.meta.User;
+import com.chuyendeweb2.group05.inventory.InventoryReservationLedger;
 import com.chuyendeweb2.group05.repo.CartItemRepository;
 import com.chuyendeweb2.group05.repo.CartRepository;
 import com.chuyendeweb2.group05.repo.ProductRepository;
 import com.chuyendeweb2.group05.repo.UserRepository;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CartService {
 
+    // Upper bound on the operations of one batch request
+    private static final int MAX_BATCH_OPERATIONS = 100;
+
     private final CartRepository cartRepository;
     private final CartItemRepository cartItemRepository;
     private final UserRepository userRepository;
     private final ProductRepository productRepository;
+    private final InventoryReservationLedger inventoryLedger;
+    private final WriteBehindCartStore cartStore;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
     public List<CartResponseDTO> getAllCarts() {
         // Lấy toàn bộ giỏ hàng
-        List<Cart> carts = cartRepository.findAll();
+        List<Cart> carts = cartRepository.findAllWithItems();
 
         return carts.stream()
                 // Explicitly specify the return type as CartResponseDTO
@@ -83,51 +99,265 @@ public class CartService {
                 .collect(Collectors.toList()); // Collect the results into a list
     }
 
-    @Transactional
+    // With the write-behind store on, cart calls are served from memory without a
+    // database transaction; otherwise each runs in its own transaction
     public CartResponseDTO getCartByUserId(Integer userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+        if (cartStore.isEnabled()) {
+            return cartStore.getCart(userId);
+        }
+        return transactionTemplate.execute(status -> getCartInDatabase(userId));
+    }
 
-        Cart cart = cartRepository.findByUser(user)
-                .orElseGet(() -> createCart(user));
+    public CartResponseDTO addItemToCart(Integer userId, CartItemRequestDTO request) {
+        if (cartStore.isEnabled()) {
+            return addItemWriteBehind(userId, request);
+        }
+        return transactionTemplate.execute(status -> addItemInDatabase(userId, request));
+    }
 
-        return mapToCartResponseDTO(cart);
+    public CartResponseDTO updateCartItem(Integer userId, Long itemId, CartItemRequestDTO request) {
+        if (cartStore.isEnabled()) {
+            return updateItemWriteBehind(userId, itemId, request);
+        }
+        return transactionTemplate.execute(status -> updateItemInDatabase(userId, itemId, request));
     }
 
-    @Transactional
-    public CartResponseDTO addItemToCart(Integer userId, CartItemRequestDTO request) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+    public CartResponseDTO removeItemFromCart(Integer userId, Long itemId) {
+        if (cartStore.isEnabled()) {
+            cartStore.findLine(userId, itemId).orElseThrow(() -> missingLine(itemId));
+            return cartStore.setQuantity(userId, itemId, 0);
+        }
+        return transactionTemplate.execute(status -> removeItemInDatabase(userId, itemId));
+    }
 
-        Product product = productRepository.findById(request.getProductId())
-                .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + request.getProductId()));
+    public void clearCart(Integer userId) {
+        if (cartStore.isEnabled()) {
+            cartStore.clear(userId);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> clearCartInDatabase(userId));
+    }
+
+    /**
+     * Applies a list of add/update/remove operations to the user's cart as one
+     * unit: the products are loaded with a single query, stock is checked for
+     * every line before anything changes, and the cart is returned once.
+     */
+    public CartResponseDTO applyCartOperations(Integer userId, CartBatchRequestDTO request) {
+        List<CartOperationDTO> operations = validateOperations(request);
+        if (cartStore.isEnabled()) {
+            return applyOperationsWriteBehind(userId, operations);
+        }
+        return transactionTemplate.execute(status -> applyOperationsInDatabase(userId, operations));
+    }
+
+    private CartResponseDTO addItemWriteBehind(Integer userId, CartItemRequestDTO request) {
+        Long productId = request.getProductId();
+        Optional<CartLine> line = cartStore.findLineByProduct(userId, productId);
+        // Only a new line needs the product row
+        Product product = line.isPresent() ? null : findProduct(productId);
 
         // Check if product is in stock
-        if (product.getStockQuantity() < request.getQuantity()) {
-            throw new IllegalArgumentException("Not enough stock available for product: " + product.getName());
+        int available = inventoryLedger.isReady()
+                ? inventoryLedger.available(productId, userId)
+                : (product != null ? product : findProduct(productId)).getStockQuantity();
+        if (available < request.getQuantity()) {
+            String productName = line.map(CartLine::getProductName).orElseGet(() -> product.getName());
+            throw new IllegalArgumentException("Not enough stock available for product: " + productName);
         }
 
-        Cart cart = cartRepository.findByUser(user)
-                .orElseGet(() -> createCart(user));
+        return cartStore.addQuantity(userId, productId, request.getQuantity(),
+                () -> product != null ? product : findProduct(productId));
+    }
 
-        CartItem cartItem = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseGet(() -> {
-                    CartItem newItem = CartItem.builder()
-                            .cart(cart)
-                            .product(product)
-                            .quantity(0)
-                            .sellerId(product.getSeller().getId().longValue()) // Cast to Long if needed
-                            .build();
-                    return newItem;
-                });
+    private CartResponseDTO updateItemWriteBehind(Integer userId, Long itemId, CartItemRequestDTO request) {
+        CartLine line = cartStore.findLine(userId, itemId).orElseThrow(() -> missingLine(itemId));
 
-        // Update quantity
-        cartItem.updateQuantity(cartItem.getQuantity() + request.getQuantity());
-        cartItemRepository.save(cartItem);
+        // Check if product is in stock for the updated quantity
+        if (request.getQuantity() > 0) {
+            int available = inventoryLedger.isReady()
+                    ? inventoryLedger.available(line.getProductId(), userId)
+                    : findProduct(line.getProductId()).getStockQuantity();
+            if (available < request.getQuantity()) {
+                throw new IllegalArgumentException("Not enough stock available for product: " + line.getProductName());
+            }
+        }
+        return cartStore.setQuantity(userId, itemId, request.getQuantity());
+    }
 
-        // Update cart total
+    private CartResponseDTO getCartInDatabase(Integer userId) {
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .orElseGet(() -> createCart(findUser(userId)));
+
+        return mapToCartResponseDTO(cart);
+    }
+
+    // One query for the cart with its lines, one for the products of the batch,
+    // then one write per new line and the flush of the changed ones
+    private CartResponseDTO applyOperationsInDatabase(Integer userId, List<CartOperationDTO> operations) {
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .orElseGet(() -> createCart(findUser(userId)));
+
+        Map<Long, CartItem> lines = new LinkedHashMap<>();
+        Map<Long, Integer> currentQuantities = new LinkedHashMap<>();
+        for (CartItem item : cart.getCartItems()) {
+            lines.putIfAbsent(item.getProduct().getId(), item);
+            currentQuantities.putIfAbsent(item.getProduct().getId(), item.getQuantity());
+        }
+        Map<Long, Product> products = findProducts(operations);
+        Map<Long, Integer> changes = planQuantities(userId, operations, currentQuantities, products);
+
+        changes.forEach((productId, quantity) -> {
+            Product product = products.get(productId);
+            CartItem cartItem = lines.get(productId);
+            if (cartItem == null) {
+                cartItem = CartItem.builder()
+                        .cart(cart)
+                        .product(product)
+                        .quantity(quantity)
+                        .sellerId(product.getSeller().getId().longValue())
+                        .build();
+                cart.getCartItems().add(cartItem);
+                // Inserted now so the response carries the new line's ID
+                cartItemRepository.save(cartItem);
+            } else if (quantity == 0) {
+                // Orphan removal deletes the line
+                cart.getCartItems().remove(cartItem);
+            } else {
+                cartItem.updateQuantity(quantity);
+            }
+        });
+        cart.calculateTotalAmount();
+
+        return mapToCartResponseDTO(cart);
+    }
+
+    // Read, validated and applied under one acquisition of the user's lock, so a
+    // concurrent change cannot slip in between and a rejected batch changes nothing
+    private CartResponseDTO applyOperationsWriteBehind(Integer userId, List<CartOperationDTO> operations) {
+        Map<Long, Product> products = findProducts(operations);
+        return cartStore.applyBatch(userId, products,
+                currentQuantities -> planQuantities(userId, operations, currentQuantities, products));
+    }
+
+    private List<CartOperationDTO> validateOperations(CartBatchRequestDTO request) {
+        if (request == null || request.getOperations() == null || request.getOperations().isEmpty()) {
+            throw new IllegalArgumentException("At least one cart operation is required");
+        }
+        List<CartOperationDTO> operations = request.getOperations();
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_OPERATIONS + " cart operations are allowed per request");
+        }
+        for (CartOperationDTO operation : operations) {
+            if (operation == null || operation.getType() == null || operation.getProductId() == null) {
+                throw new IllegalArgumentException("Each cart operation needs a type and a product ID");
+            }
+            Integer quantity = operation.getQuantity();
+            switch (operation.getType()) {
+                case ADD -> {
+                    if (quantity == null || quantity <= 0) {
+                        throw new IllegalArgumentException("Quantity to add must be positive for product: "
+                                + operation.getProductId());
+                    }
+                }
+                case UPDATE -> {
+                    if (quantity == null || quantity < 0) {
+                        throw new IllegalArgumentException("Quantity must not be negative for product: "
+                                + operation.getProductId());
+                    }
+                }
+                case REMOVE -> {
+                    // Quantity is ignored
+                }
+            }
+        }
+        return operations;
+    }
+
+    // All products of the batch in one query
+    private Map<Long, Product> findProducts(List<CartOperationDTO> operations) {
+        List<Long> productIds = operations.stream()
+                .map(CartOperationDTO::getProductId)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, product -> product));
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new EntityNotFoundException("Product not found with id: " + productId);
+            }
+        }
+        return products;
+    }
+
+    // Folds the operations into a final quantity per product, checks stock for
+    // every line that grows and returns only the lines that change
+    private Map<Long, Integer> planQuantities(Integer userId, List<CartOperationDTO> operations,
+            Map<Long, Integer> currentQuantities, Map<Long, Product> products) {
+        Map<Long, Integer> finalQuantities = new LinkedHashMap<>();
+        for (CartOperationDTO operation : operations) {
+            Long productId = operation.getProductId();
+            int quantity = finalQuantities.getOrDefault(productId, currentQuantities.getOrDefault(productId, 0));
+            switch (operation.getType()) {
+                case ADD -> quantity += operation.getQuantity();
+                case UPDATE -> quantity = operation.getQuantity();
+                case REMOVE -> quantity = 0;
+            }
+            finalQuantities.put(productId, quantity);
+        }
+
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        finalQuantities.forEach((productId, quantity) -> {
+            int previousQuantity = currentQuantities.getOrDefault(productId, 0);
+            if (quantity == previousQuantity) {
+                return;
+            }
+            Product product = products.get(productId);
+            // Check if product is in stock for the final quantity
+            if (quantity > previousQuantity && availableStock(product, userId) < quantity) {
+                throw new IllegalArgumentException("Not enough stock available for product: " + product.getName());
+            }
+            changes.put(productId, quantity);
+        });
+        return changes;
+    }
+
+    // A constant number of statements whatever the cart size: one query for the
+    // cart with its lines and products, the product only for a new line, then
+    // one write for the line and one for the cart
+    private CartResponseDTO addItemInDatabase(Integer userId, CartItemRequestDTO request) {
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
+                .orElseGet(() -> createCart(findUser(userId)));
+
+        CartItem cartItem = cart.getCartItems().stream()
+                .filter(item -> item.getProduct().getId().equals(request.getProductId()))
+                .findFirst()
+                .orElse(null);
+        Product product = cartItem != null
+                ? cartItem.getProduct()
+                : findProduct(request.getProductId());
+
+        // Check if product is in stock
+        if (availableStock(product, userId) < request.getQuantity()) {
+            throw new IllegalArgumentException("Not enough stock available for product: " + product.getName());
+        }
+
+        if (cartItem == null) {
+            cartItem = CartItem.builder()
+                    .cart(cart)
+                    .product(product)
+                    .quantity(request.getQuantity())
+                    .sellerId(product.getSeller().getId().longValue()) // Cast to Long if needed
+                    .build();
+            cart.getCartItems().add(cartItem);
+            // Inserted now so the response carries the new line's ID
+            cartItemRepository.save(cartItem);
+        } else {
+            cartItem.updateQuantity(cartItem.getQuantity() + request.getQuantity());
+        }
+
+        // Update cart total from the loaded lines
         cart.calculateTotalAmount();
-        cartRepository.save(cart);
 
         return mapToCartResponseDTO(cart);
     }
@@ -173,70 +403,46 @@ public class CartService {
     // return mapToCartResponseDTO(cart);
     // }
 
-    @Transactional
-    public CartResponseDTO updateCartItem(Integer userId, Long itemId, CartItemRequestDTO request) {
+    private CartResponseDTO updateItemInDatabase(Integer userId, Long itemId, CartItemRequestDTO request) {
         Cart cart = getCartForUser(userId);
-
-        CartItem cartItem = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new EntityNotFoundException("Cart item not found with id: " + itemId));
-
-        // Validate cart item belongs to the user
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new IllegalArgumentException("Cart item does not belong to this user");
-        }
-
+        CartItem cartItem = findLine(cart, itemId);
         Product product = cartItem.getProduct();
 
         // Check if product is in stock for the updated quantity
         if (request.getQuantity() > 0) {
-            if (product.getStockQuantity() < request.getQuantity()) {
+            if (availableStock(product, userId) < request.getQuantity()) {
                 throw new IllegalArgumentException("Not enough stock available for product: " + product.getName());
             }
             cartItem.updateQuantity(request.getQuantity());
         } else {
-            cartItemRepository.delete(cartItem);
+            // Orphan removal deletes the line
+            cart.getCartItems().remove(cartItem);
         }
 
-        // Recalculate cart total
+        // Update cart total from the loaded lines
         cart.calculateTotalAmount();
-        cartRepository.save(cart);
 
         return mapToCartResponseDTO(cart);
     }
 
-    @Transactional
-    public CartResponseDTO removeItemFromCart(Integer userId, Long itemId) {
+    private CartResponseDTO removeItemInDatabase(Integer userId, Long itemId) {
         // Get the cart for the user
         Cart cart = getCartForUser(userId);
 
         // Find the cart item to remove
-        CartItem cartItem = cartItemRepository.findById(itemId)
-                .orElseThrow(() -> new EntityNotFoundException("Cart item not found with id: " + itemId));
-
-        // Validate that the cart item belongs to the user's cart
-        if (!cartItem.getCart().getId().equals(cart.getId())) {
-            throw new IllegalArgumentException("Cart item does not belong to this user");
-        }
+        CartItem cartItem = findLine(cart, itemId);
 
-        // Remove association from both sides
+        // Remove it from the cart; orphan removal deletes the line
         cart.getCartItems().remove(cartItem);
-        cartItem.setCart(null);
 
-        // Delete the cart item
-        cartItemRepository.delete(cartItem);
-
-        // Recalculate the total amount
+        // Update cart total from the remaining lines
         cart.calculateTotalAmount();
 
-        // Save the updated cart
-        cartRepository.save(cart);
-
         // Return the updated CartResponseDTO
         return mapToCartResponseDTO(cart);
     }
 
-    @Transactional
-    public void clearCart(Integer userId) {
+    private void clearCartInDatabase(Integer userId) {
         Cart cart = getCartForUser(userId);
         cartItemRepository.deleteByCartId(cart.getId());
         cart.clearCart();
@@ -251,12 +457,41 @@ public class CartService {
         return cartRepository.save(cart);
     }
 
+    // Stock not held by other users' checkouts, from the in-memory ledger once it has loaded
+    private int availableStock(Product product, Integer userId) {
+        return inventoryLedger.isReady()
+                ? inventoryLedger.available(product.getId(), userId)
+                : product.getStockQuantity();
+    }
+
     private Cart getCartForUser(Integer userId) {
-        User user = userRepository.findById(userId)
+        return cartRepository.findWithItemsByUserId(userId)
+                .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + userId));
+    }
+
+    private User findUser(Integer userId) {
+        return userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + userId));
+    }
 
-        return cartRepository.findByUser(user)
-                .orElseThrow(() -> new EntityNotFoundException("Cart not found for user: " + userId));
+    private Product findProduct(Long productId) {
+        return productRepository.findById(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
+    }
+
+    // The line is looked up among the loaded ones
+    private CartItem findLine(Cart cart, Long itemId) {
+        return cart.getCartItems().stream()
+                .filter(item -> item.getId().equals(itemId))
+                .findFirst()
+                .orElseThrow(() -> missingLine(itemId));
+    }
+
+    // The database is only asked to tell a missing line from another user's
+    private RuntimeException missingLine(Long itemId) {
+        return cartItemRepository.existsById(itemId)
+                ? new IllegalArgumentException("Cart item does not belong to this user")
+                : new EntityNotFoundException("Cart item not found with id: " + itemId);
     }
 
     private CartResponseDTO mapToCartResponseDTO(Cart cart) {
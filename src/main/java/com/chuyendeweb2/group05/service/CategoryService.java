@@ -1,24 +1,50 @@
 package com.chuyendeweb2.group05.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import com.chuyendeweb2.group05.dto.CategoryCreateRequestDTO;
 import com.chuyendeweb2.group05.dto.CategoryResponseDTO;
+import com.chuyendeweb2.group05.dto.CategoryTreeDTO;
+import com.chuyendeweb2.group05.dto.CategoryTreeNodeDTO;
 import com.chuyendeweb2.group05.dto.CategoryUpdateRequestDTO;
 import com.chuyendeweb2.group05.entity.meta.Category;
+import com.chuyendeweb2.group05.event.CategoryChangedEvent;
 import com.chuyendeweb2.group05.exception.CategoryAlreadyExistsException;
 import com.chuyendeweb2.group05.exception.CategoryNotFoundException;
+import com.chuyendeweb2.group05.exception.InvalidCategoryParentException;
 import com.chuyendeweb2.group05.repo.CategoryRepository;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Immutable view of every category, replaced whole after each committed change;
+    // reads never touch the database once it is built
+    private volatile CategorySnapshot snapshot;
 
     @Transactional
     public void deleteCategory(long id) {
@@ -38,26 +64,63 @@ public class CategoryService {
 
         // Xóa danh mục
         categoryRepository.delete(category);
+        renumberTree();
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     public List<CategoryResponseDTO> getActiveCategories() {
-        return categoryRepository.findByIsActiveTrue().stream()
-                .map(CategoryResponseDTO::fromEntity) // Sử dụng fromEntity
-                .toList();
+        return snapshot().active;
     }
 
     public List<CategoryResponseDTO> getAllCategories() {
-        return categoryRepository.findAllByOrderByCreatedAtDesc().stream()
-                .map(CategoryResponseDTO::fromEntity) // Sử dụng fromEntity
-                .toList();
+        return snapshot().all;
     }
 
     public List<CategoryResponseDTO> getSubCategories(long id) {
-        Category parent = categoryRepository.findById(id)
-                .orElseThrow(CategoryNotFoundException::new);
-        return categoryRepository.findByParentCategory(parent).stream()
-                .map(CategoryResponseDTO::fromEntity) // Sử dụng fromEntity
-                .toList();
+        CategorySnapshot current = snapshot();
+        if (!current.ids.contains(id)) {
+            throw new CategoryNotFoundException();
+        }
+        return current.children.getOrDefault(id, List.of());
+    }
+
+    // The category and all of its descendants, active or not
+    public Set<Long> getSubtreeIds(long id) {
+        CategorySnapshot current = snapshot();
+        Set<Long> subtree = new HashSet<>();
+        Deque<Long> pending = new ArrayDeque<>();
+        pending.push(id);
+        while (!pending.isEmpty()) {
+            Long next = pending.pop();
+            if (subtree.add(next)) {
+                current.children.getOrDefault(next, List.of()).forEach(child -> pending.push(child.getId()));
+            }
+        }
+        return subtree;
+    }
+
+    // Cây danh mục đang hoạt động; danh mục con của danh mục bị vô hiệu hóa cũng bị ẩn
+    public CategoryTreeDTO getCategoryTree() {
+        return snapshot().tree;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        rebuildSnapshot();
+    }
+
+    private CategorySnapshot snapshot() {
+        CategorySnapshot current = snapshot;
+        return current != null ? current : rebuildSnapshot();
+    }
+
+    // Serialized, so a rebuild that read older rows can never replace a newer snapshot
+    private synchronized CategorySnapshot rebuildSnapshot() {
+        CategorySnapshot rebuilt = CategorySnapshot.of(categoryRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(CategoryResponseDTO::fromEntity)
+                .toList());
+        snapshot = rebuilt;
+        return rebuilt;
     }
 
     @Transactional
@@ -78,6 +141,8 @@ public class CategoryService {
                 .build();
 
         Category saved = categoryRepository.save(category);
+        renumberTree();
+        eventPublisher.publishEvent(new CategoryChangedEvent(saved.getId()));
         return CategoryResponseDTO.fromEntity(saved); // Sử dụng fromEntity
     }
 
@@ -98,18 +163,71 @@ public class CategoryService {
             if (!requestDTO.getParentCategoryId().equals(currentParentId)) {
                 Category parent = categoryRepository.findById(requestDTO.getParentCategoryId())
                         .orElseThrow(CategoryNotFoundException::new);
+                if (parent.isInSubtreeOf(category)) {
+                    throw new InvalidCategoryParentException();
+                }
                 category.updateParentCategory(parent);
+                renumberTree();
             }
         }
 
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
         return CategoryResponseDTO.fromEntity(category);
     }
 
+    // Numbers categories created before the nested-set columns existed
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void numberTreeIfMissing() {
+        if (categoryRepository.existsByLftIsNull()) {
+            renumberTree();
+        }
+    }
+
+    /**
+     * Recomputes the nested-set bounds of the whole tree after a category is
+     * created, moved or deleted. The tree is small and changes rarely, so a full
+     * pass keeps the numbering simple; only rows whose bounds changed are written.
+     */
+    private void renumberTree() {
+        List<Category> roots = new ArrayList<>();
+        Map<Long, List<Category>> children = new HashMap<>();
+        for (Category category : categoryRepository.findAll()) {
+            if (category.getParentCategory() == null) {
+                roots.add(category);
+            } else {
+                children.computeIfAbsent(category.getParentCategory().getId(), parentId -> new ArrayList<>())
+                        .add(category);
+            }
+        }
+
+        int next = 1;
+        roots.sort(Comparator.comparing(Category::getId));
+        for (Category root : roots) {
+            next = number(root, children, next);
+        }
+    }
+
+    // Numbers the subtree rooted at category starting at next; returns the next free number
+    private int number(Category category, Map<Long, List<Category>> children, int next) {
+        int lft = next++;
+        List<Category> subCategories = children.get(category.getId());
+        if (subCategories != null) {
+            subCategories.sort(Comparator.comparing(Category::getId));
+            for (Category child : subCategories) {
+                next = number(child, children, next);
+            }
+        }
+        category.placeInTree(lft, next);
+        return next + 1;
+    }
+
     @Transactional
     public void activateCategory(long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(CategoryNotFoundException::new);
         category.activate();
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
     }
 
     @Transactional
@@ -117,5 +235,85 @@ public class CategoryService {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(CategoryNotFoundException::new);
         category.deactivate();
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+    }
+
+    private static final class CategorySnapshot {
+        private final List<CategoryResponseDTO> all;
+        private final List<CategoryResponseDTO> active;
+        private final Set<Long> ids;
+        private final Map<Long, List<CategoryResponseDTO>> children;
+        private final CategoryTreeDTO tree;
+
+        private CategorySnapshot(List<CategoryResponseDTO> all, List<CategoryResponseDTO> active, Set<Long> ids,
+                Map<Long, List<CategoryResponseDTO>> children, CategoryTreeDTO tree) {
+            this.all = all;
+            this.active = active;
+            this.ids = ids;
+            this.children = children;
+            this.tree = tree;
+        }
+
+        // newestFirst: every category, newest first (the order of getAllCategories)
+        private static CategorySnapshot of(List<CategoryResponseDTO> newestFirst) {
+            List<CategoryResponseDTO> byId = newestFirst.stream()
+                    .sorted(Comparator.comparing(CategoryResponseDTO::getId))
+                    .toList();
+
+            Map<Long, List<CategoryResponseDTO>> children = new HashMap<>();
+            List<CategoryResponseDTO> roots = new ArrayList<>();
+            for (CategoryResponseDTO category : byId) {
+                if (category.getParentCategoryId() == null) {
+                    roots.add(category);
+                } else {
+                    children.computeIfAbsent(category.getParentCategoryId(), parentId -> new ArrayList<>())
+                            .add(category);
+                }
+            }
+            children.replaceAll((parentId, list) -> List.copyOf(list));
+
+            MessageDigest digest = sha256();
+            List<CategoryTreeNodeDTO> treeRoots = activeNodes(roots, children, digest);
+
+            return new CategorySnapshot(
+                    List.copyOf(newestFirst),
+                    byId.stream().filter(CategoryResponseDTO::isActive).toList(),
+                    byId.stream().map(CategoryResponseDTO::getId).collect(Collectors.toUnmodifiableSet()),
+                    Map.copyOf(children),
+                    CategoryTreeDTO.builder()
+                            .version(HexFormat.of().formatHex(digest.digest(), 0, 16))
+                            .roots(treeRoots)
+                            .build());
+        }
+
+        // Builds the nodes of the active categories, feeding their content to the version digest
+        private static List<CategoryTreeNodeDTO> activeNodes(List<CategoryResponseDTO> categories,
+                Map<Long, List<CategoryResponseDTO>> children, MessageDigest digest) {
+            List<CategoryTreeNodeDTO> nodes = new ArrayList<>();
+            for (CategoryResponseDTO category : categories) {
+                if (!category.isActive()) {
+                    continue;
+                }
+                digest.update(("[" + category.getId() + ":" + category.getName())
+                        .getBytes(StandardCharsets.UTF_8));
+                List<CategoryTreeNodeDTO> subtree = activeNodes(
+                        children.getOrDefault(category.getId(), List.of()), children, digest);
+                digest.update((byte) ']');
+                nodes.add(CategoryTreeNodeDTO.builder()
+                        .id(category.getId())
+                        .name(category.getName())
+                        .children(subtree)
+                        .build());
+            }
+            return List.copyOf(nodes);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
     }
 }
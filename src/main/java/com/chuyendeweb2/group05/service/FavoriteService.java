@@ -2,6 +2,7 @@ package com.chuyendeweb2.group05.service;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.chuyendeweb2.group05.dto.FavoriteDTO;
 import com.chuyendeweb2.group05.entity.meta.User;
@@ -10,6 +11,7 @@ public interface FavoriteService {
     FavoriteDTO addFavorite(User user, Long productId);
     void removeFavorite(User user, Long productId);
     Page<FavoriteDTO> getUserFavorites(User user, Pageable pageable);
+    Slice<FavoriteDTO> getUserFavoritesSlice(User user, Pageable pageable);
     boolean isProductFavorited(User user, Long productId);
     long getFavoriteCount(Long productId);
 }
\ No newline at end of file
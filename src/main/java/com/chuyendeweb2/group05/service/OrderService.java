@@ -3,6 +3,7 @@ package com.chuyendeweb2.group05.service;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import com.chuyendeweb2.group05.dto.InventoryHoldDTO;
 import com.chuyendeweb2.group05.dto.OrderDTO;
 import com.chuyendeweb2.group05.dto.OrderRequest;
 import com.chuyendeweb2.group05.dto.OrderStatusUpdateRequest;
@@ -10,6 +11,10 @@ import com.chuyendeweb2.group05.entity.meta.User;
 import com.chuyendeweb2.group05.enums.OrderStatus;
 
 public interface OrderService {
+    InventoryHoldDTO startCheckout(User user);
+
+    void releaseCheckout(User user);
+
     OrderDTO createOrderFromCart(User user, OrderRequest orderRequest);
 
     OrderDTO getOrderById(Long orderId);
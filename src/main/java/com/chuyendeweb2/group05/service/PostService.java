@@ -7,6 +7,7 @@ import com.chuyendeweb2.group05.entity.meta.Post;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -46,4 +47,6 @@ public interface PostService {
     List<PostResponseDTO> getAllActivePosts();
 
     Page<PostResponseDTO> getAllActivePosts(Pageable pageable);
+
+    Slice<PostResponseDTO> getActivePostsSlice(Pageable pageable);
 }
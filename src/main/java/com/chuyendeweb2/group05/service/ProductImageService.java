@@ -1,6 +1,8 @@
 package com.chuyendeweb2.group05.service;
 
+import com.chuyendeweb2.group05.dto.ProductCreateRequestDTO;
 import com.chuyendeweb2.group05.dto.ProductImageDTO;
+import com.chuyendeweb2.group05.dto.ProductResponseDTO;
 
 import java.util.List;
 
@@ -16,6 +18,28 @@ public interface ProductImageService {
      */
     ProductImageDTO addProductImage(Long productId, String filename, String url, Boolean isPrimary);
 
+    /**
+     * Add several non-primary images to a product with a single batched insert
+     * 
+     * @param productId The ID of the product to add the images to
+     * @param filenames The filenames of the saved images
+     */
+    void addProductImages(Long productId, List<String> filenames);
+
+    /**
+     * Create a product and its image rows in one transaction from images
+     * already stored on disk. The stored files are deleted again only if the
+     * transaction rolls back.
+     * 
+     * @param requestDTO   The product to create
+     * @param userId       The ID of the seller
+     * @param filenames    The filenames of the stored images
+     * @param primaryFirst Whether the first file is the primary image
+     * @return The created product, without the additional images
+     */
+    ProductResponseDTO createProductWithImages(ProductCreateRequestDTO requestDTO, Integer userId,
+            List<String> filenames, boolean primaryFirst);
+
     /**
      * Get all images for a product
      * 
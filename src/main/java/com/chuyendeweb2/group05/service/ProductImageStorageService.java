@@ -5,6 +5,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.stream.Stream;
 
 public interface ProductImageStorageService {
@@ -22,6 +23,19 @@ public interface ProductImageStorageService {
      */
     String save(MultipartFile file) throws IOException;
 
+    /**
+     * Save several uploaded images concurrently and return their filenames in
+     * the same order. Each file must be a JPEG, PNG, GIF or WebP image judging
+     * by its leading bytes, and is flushed to disk before this method returns.
+     * Either every file is stored or none is.
+     *
+     * @param files The files to save
+     * @return The generated filenames
+     * @throws IllegalArgumentException If a file is empty or not a supported image
+     * @throws IOException If there is an error saving a file
+     */
+    List<String> saveAll(List<MultipartFile> files) throws IOException;
+
     /**
      * Load a file by filename
      * 
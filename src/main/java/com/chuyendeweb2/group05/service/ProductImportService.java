@@ -0,0 +1,23 @@
+package com.chuyendeweb2.group05.service;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import com.chuyendeweb2.group05.dto.ProductImportJobDTO;
+
+import java.io.IOException;
+
+public interface ProductImportService {
+
+    /**
+     * Stages the uploaded CSV or NDJSON file and imports its rows as PENDING
+     * products of the seller in the background.
+     *
+     * @return the queued job, to be polled with {@link #getJob}
+     */
+    ProductImportJobDTO startImport(MultipartFile file, Integer sellerId) throws IOException;
+
+    /**
+     * Progress of an import job started by the given seller.
+     */
+    ProductImportJobDTO getJob(String jobId, Integer sellerId);
+}
@@ -2,11 +2,20 @@ package com.chuyendeweb2.group05.service;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.chuyendeweb2.group05.dto.AutocompleteSuggestionDTO;
+import com.chuyendeweb2.group05.dto.BulkModerationRequestDTO;
+import com.chuyendeweb2.group05.dto.BulkModerationResultDTO;
+import com.chuyendeweb2.group05.dto.CursorPageResponseDTO;
+import com.chuyendeweb2.group05.dto.FacetedProductPageDTO;
+import com.chuyendeweb2.group05.dto.PriceHistogramDTO;
 import com.chuyendeweb2.group05.dto.ProductCreateRequestDTO;
 import com.chuyendeweb2.group05.dto.ProductResponseDTO;
 import com.chuyendeweb2.group05.dto.ProductUpdateRequestDTO;
@@ -54,6 +63,69 @@ public interface ProductService {
                         Integer maxStock,
                         Pageable pageable);
 
+        // Same as getActiveProducts without the total count, for infinite scroll
+        Slice<ProductResponseDTO> getActiveProductsSlice(
+                        String keyword,
+                        Long categoryId,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice,
+                        Integer minStock,
+                        Integer maxStock,
+                        Pageable pageable);
+
+        /**
+         * Keyset-paginated variant of {@link #getActiveProducts}. Skips the count
+         * query and seeks past the previous page instead of using an offset.
+         *
+         * @param sortField one of id, price or createdAt; ignored when a cursor is given
+         * @param direction sort direction; ignored when a cursor is given
+         * @param cursor    token from the previous page, or null for the first page
+         * @param size      page size
+         */
+        CursorPageResponseDTO<ProductResponseDTO> getActiveProductsAfter(
+                        String keyword,
+                        Long categoryId,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice,
+                        Integer minStock,
+                        Integer maxStock,
+                        String sortField,
+                        Sort.Direction direction,
+                        String cursor,
+                        int size);
+
+        /**
+         * Same results as {@link #getActiveProducts} together with category,
+         * price bucket and stock facet counts for the filtered result set.
+         */
+        FacetedProductPageDTO getActiveProductsWithFacets(
+                        String keyword,
+                        Long categoryId,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice,
+                        Integer minStock,
+                        Integer maxStock,
+                        Pageable pageable);
+
+        /**
+         * Min/max price and a log-scaled price histogram of active products in
+         * the category (and its subcategories) matching the keyword. Answered
+         * from memory; throws IllegalStateException until the catalog is loaded.
+         */
+        PriceHistogramDTO getPriceHistogram(String keyword, Long categoryId);
+
+        /**
+         * Products most often bought together with the given one in delivered
+         * orders, best first. Empty when there is not enough order history.
+         */
+        List<ProductResponseDTO> getAlsoBoughtProducts(Long productId, int limit);
+
+        /**
+         * Prefix suggestions over active product and category names for the
+         * search box, most popular first.
+         */
+        List<AutocompleteSuggestionDTO> autocomplete(String prefix, int limit);
+
         // Get all products with filtering, sorting, and pagination
         Page<ProductResponseDTO> getAllProducts(
                         String keyword,
@@ -138,6 +210,18 @@ public interface ProductService {
         // Admin reject/deactivate product
         ProductResponseDTO deactivateProduct(Long productId, Integer adminId);
 
+        // Admin approve many products: by IDs, or every pending product matching the filter
+        BulkModerationResultDTO approveProducts(BulkModerationRequestDTO request, Integer adminId);
+
+        // Admin deactivate many products: by IDs, or every pending product matching the filter
+        BulkModerationResultDTO deactivateProducts(BulkModerationRequestDTO request, Integer adminId);
+
+        // Admin: split the product's stock into shard rows that checkouts decrement independently
+        ProductResponseDTO startFlashSale(Long productId, int shards, Integer adminId);
+
+        // Admin: fold the shard rows back into the product's stock
+        ProductResponseDTO endFlashSale(Long productId, Integer adminId);
+
         // Get pending products (for admin) - paginated, searchable, sortable
         Page<ProductResponseDTO> getPendingProducts(
                         String keyword,
@@ -0,0 +1,12 @@
+package com.chuyendeweb2.group05.service;
+
+public interface ProductStatsService {
+
+    /**
+     * Recomputes the denormalized rating and favorite counters of every
+     * product from the reviews and favorites tables.
+     *
+     * @return number of product rows updated
+     */
+    int reconcileAll();
+}
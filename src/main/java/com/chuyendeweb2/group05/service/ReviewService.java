@@ -2,6 +2,7 @@ package com.chuyendeweb2.group05.service;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import com.chuyendeweb2.group05.dto.RatingStatsDTO;
 import com.chuyendeweb2.group05.dto.ReviewDTO;
@@ -25,6 +26,10 @@ public interface ReviewService {
 
     Page<ReviewDTO> getVerifiedProductReviews(Long productId, Pageable pageable);
 
+    Slice<ReviewDTO> getProductReviewsSlice(Long productId, Pageable pageable);
+
+    Slice<ReviewDTO> getVerifiedProductReviewsSlice(Long productId, Pageable pageable);
+
     List<ReviewDTO> getUserReviews(User user);
 
     boolean hasUserReviewedProduct(User user, Long productId);
@@ -1,8 +1,10 @@
 package com.chuyendeweb2.group05.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -10,6 +12,7 @@ import com.chuyendeweb2.group05.dto.FavoriteDTO;
 import com.chuyendeweb2.group05.entity.meta.Favorite;
 import com.chuyendeweb2.group05.entity.meta.Product;
 import com.chuyendeweb2.group05.entity.meta.User;
+import com.chuyendeweb2.group05.event.ProductDetailInvalidatedEvent;
 import com.chuyendeweb2.group05.repo.FavoriteRepository;
 import com.chuyendeweb2.group05.repo.ProductRepository;
 import com.chuyendeweb2.group05.service.FavoriteService;
@@ -21,6 +24,7 @@ import java.util.Optional;
 public class FavoriteServiceImpl implements FavoriteService {
     private final FavoriteRepository favoriteRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
@@ -40,6 +44,8 @@ public class FavoriteServiceImpl implements FavoriteService {
                 .product(product)
                 .build();
         favoriteRepository.save(favorite);
+        productRepository.adjustFavoriteCount(product.getId(), 1);
+        eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(product.getId()));
 
         return new FavoriteDTO(favorite.getId(), user.getId().intValue(), user.getUsername(), product.getId(),
                 product.getName(), product.getImageUrl(), product.getPrice(), favorite.getCreatedAt());
@@ -52,12 +58,25 @@ public class FavoriteServiceImpl implements FavoriteService {
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
         Optional<Favorite> favoriteOpt = favoriteRepository.findByUserAndProduct(user, product);
-        favoriteOpt.ifPresent(favoriteRepository::delete);
+        favoriteOpt.ifPresent(favorite -> {
+            favoriteRepository.delete(favorite);
+            productRepository.adjustFavoriteCount(productId, -1);
+            eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(productId));
+        });
     }
 
     @Override
     public Page<FavoriteDTO> getUserFavorites(User user, Pageable pageable) {
-        return favoriteRepository.findByUser(user, pageable).map(favorite -> new FavoriteDTO(
+        return favoriteRepository.findByUser(user, pageable).map(favorite -> mapToDTO(user, favorite));
+    }
+
+    @Override
+    public Slice<FavoriteDTO> getUserFavoritesSlice(User user, Pageable pageable) {
+        return favoriteRepository.findSliceByUser(user, pageable).map(favorite -> mapToDTO(user, favorite));
+    }
+
+    private FavoriteDTO mapToDTO(User user, Favorite favorite) {
+        return new FavoriteDTO(
                 favorite.getId(),
                 user.getId().intValue(),
                 user.getUsername(),
@@ -65,7 +84,7 @@ public class FavoriteServiceImpl implements FavoriteService {
                 favorite.getProduct().getName(),
                 favorite.getProduct().getImageUrl(),
                 favorite.getProduct().getPrice(),
-                favorite.getCreatedAt()));
+                favorite.getCreatedAt());
     }
 
     @Override
@@ -79,7 +98,7 @@ public class FavoriteServiceImpl implements FavoriteService {
     public long getFavoriteCount(Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
-        return favoriteRepository.countByProduct(product);
+        return product.getFavoriteCount();
     }
 
 }
@@ -1,9 +1,14 @@
 package com.chuyendeweb2.group05.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.chuyendeweb2.group05.cart.WriteBehindCartStore;
+import com.chuyendeweb2.group05.dto.InventoryHoldDTO;
 import com.chuyendeweb2.group05.dto.OrderDTO;
 import com.chuyendeweb2.group05.dto.OrderDetailDTO;
 import com.chuyendeweb2.group05.dto.OrderRequest;
@@ -11,16 +16,25 @@ import com.chuyendeweb2.group05.dto.OrderStatusUpdateRequest;
 import com.chuyendeweb2.group05.entity.meta.*;
 import com.chuyendeweb2.group05.enums.OrderStatus;
 import com.chuyendeweb2.group05.enums.PaymentStatus;
+import com.chuyendeweb2.group05.event.CartCheckedOutEvent;
+import com.chuyendeweb2.group05.event.InventoryHoldConfirmedEvent;
+import com.chuyendeweb2.group05.event.OrderDeliveredEvent;
+import com.chuyendeweb2.group05.event.ProductChangedEvent;
 import com.chuyendeweb2.group05.exception.ResourceNotFoundException;
+import com.chuyendeweb2.group05.inventory.InventoryHold;
+import com.chuyendeweb2.group05.inventory.InventoryReservationLedger;
 import com.chuyendeweb2.group05.repo.CartRepository;
 import com.chuyendeweb2.group05.repo.OrderDetailRepository;
 import com.chuyendeweb2.group05.repo.OrderRepository;
+import com.chuyendeweb2.group05.repo.ProductRepository;
 import com.chuyendeweb2.group05.service.OrderService;
 import com.chuyendeweb2.group05.service.WalletService;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,7 +44,12 @@ public class OrderServiceImpl implements OrderService {
     private final OrderRepository orderRepository;
     private final OrderDetailRepository orderDetailRepository;
     private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final InventoryReservationLedger inventoryLedger;
+    private final WriteBehindCartStore cartStore;
     private final WalletService walletService; // Add the wallet service
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public List<OrderDTO> getAllOrders() {
@@ -40,16 +59,86 @@ public class OrderServiceImpl implements OrderService {
                 .collect(Collectors.toList());
     }
 
+    // Cart changes still held in memory are committed before the checkout
+    // transaction opens, so the flush never needs a second connection
+    @Override
+    public InventoryHoldDTO startCheckout(User user) {
+        cartStore.flush(user.getId());
+        return transactionTemplate.execute(status -> reserveCart(user));
+    }
+
+    @Override
+    public void releaseCheckout(User user) {
+        inventoryLedger.release(user.getId());
+    }
+
     @Override
-    @Transactional
     public OrderDTO createOrderFromCart(User user, OrderRequest orderRequest) {
-        Cart cart = cartRepository.findByUser(user)
+        cartStore.beginCheckout(user.getId());
+        try {
+            return checkoutTransaction().execute(status -> createOrder(user, orderRequest));
+        } finally {
+            cartStore.endCheckout(user.getId());
+        }
+    }
+
+    // decrementStock needs READ COMMITTED for flash-sale products: shards it
+    // passed over are unlocked again, so checkouts cannot deadlock on them
+    private TransactionTemplate checkoutTransaction() {
+        TransactionTemplate checkout = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        checkout.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        return checkout;
+    }
+
+    private InventoryHoldDTO reserveCart(User user) {
+        Cart cart = cartRepository.findWithItemsByUserId(user.getId())
+                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
+
+        if (cart.getCartItems().isEmpty()) {
+            throw new IllegalStateException("Cannot check out an empty cart");
+        }
+
+        // Giữ hàng trong bộ nhớ cho đến khi đặt hàng hoặc hết hạn
+        List<Long> outOfStock = inventoryLedger.reserve(user.getId(), cartQuantities(cart));
+        if (!outOfStock.isEmpty()) {
+            throw new IllegalStateException("Not enough stock for product: " + productName(cart, outOfStock.get(0)));
+        }
+
+        InventoryHold hold = inventoryLedger.findHold(user.getId())
+                .orElseThrow(() -> new IllegalStateException("Checkout hold expired"));
+        return InventoryHoldDTO.builder()
+                .quantities(hold.getQuantities())
+                .expiresAt(hold.getExpiresAt())
+                .build();
+    }
+
+    private OrderDTO createOrder(User user, OrderRequest orderRequest) {
+        Cart cart = cartRepository.findWithItemsByUserId(user.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
 
         if (cart.getCartItems().isEmpty()) {
             throw new IllegalStateException("Cannot create order from empty cart");
         }
 
+        // The user's checkout hold must cover the cart, so units other shoppers
+        // hold are never taken; without a hold the units must be free. Only checked
+        // here: the ledger is settled after commit (InventoryHoldConfirmedEvent)
+        Map<Long, Integer> quantities = cartQuantities(cart);
+        List<Long> unreserved = inventoryLedger.findShortages(user.getId(), quantities);
+        if (!unreserved.isEmpty()) {
+            throw new IllegalStateException("Not enough stock for product: " + productName(cart, unreserved.get(0)));
+        }
+
+        // Take the stock first with conditional updates: no read-modify-write, so
+        // concurrent checkouts cannot oversell, and a shortfall rolls back the batch
+        List<Long> outOfStock = productRepository.decrementStock(quantities);
+        if (!outOfStock.isEmpty()) {
+            throw new IllegalStateException("Not enough stock for product: " + productName(cart, outOfStock.get(0)));
+        }
+
+        // Cart totals are kept up incrementally; charge the current prices
+        cart.calculateTotalAmount();
+
         Order order = Order.builder()
                 .user(user)
                 .shippingAddress(orderRequest.getShippingAddress())
@@ -66,14 +155,6 @@ public class OrderServiceImpl implements OrderService {
         for (CartItem cartItem : cart.getCartItems()) {
             Product product = cartItem.getProduct();
 
-            // Kiểm tra xem có đủ số lượng trong kho không
-            if (product.getStockQuantity() < cartItem.getQuantity()) {
-                throw new IllegalStateException("Not enough stock for product: " + product.getName());
-            }
-
-            // Giảm số lượng tồn kho
-            product.reduceStock(cartItem.getQuantity());
-
             // Lấy thông tin sản phẩm trực tiếp từ đối tượng product
             String productName = product.getName();
             String productDescription = product.getDescription();
@@ -93,6 +174,10 @@ public class OrderServiceImpl implements OrderService {
         // Clear the cart after creating the order
         cart.clearCart();
         cartRepository.save(cart);
+        // Published first so the hold is settled before the catalog reloads the new stock
+        eventPublisher.publishEvent(new InventoryHoldConfirmedEvent(user.getId(), quantities));
+        eventPublisher.publishEvent(new CartCheckedOutEvent(user.getId()));
+        eventPublisher.publishEvent(new ProductChangedEvent(quantities.keySet()));
 
         return mapOrderToDTO(orderRepository.save(order));
     }
@@ -106,10 +191,12 @@ public class OrderServiceImpl implements OrderService {
         // Only allow cancellation for pending or processing orders
         if (order.getStatus() == OrderStatus.PENDING || order.getStatus() == OrderStatus.PROCESSING) {
             // Trả lại số lượng tồn kho cho các sản phẩm
+            Map<Long, Integer> quantities = new TreeMap<>();
             for (OrderDetail orderDetail : order.getOrderDetails()) {
-                Product product = orderDetail.getProduct();
-                product.increaseStock(orderDetail.getQuantity());
+                quantities.merge(orderDetail.getProduct().getId(), orderDetail.getQuantity(), Integer::sum);
             }
+            productRepository.incrementStock(quantities);
+            eventPublisher.publishEvent(new ProductChangedEvent(quantities.keySet()));
 
             order.setStatus(OrderStatus.CANCELLED);
             order.setPaymentStatus(PaymentStatus.REFUNDED);
@@ -166,6 +253,9 @@ public class OrderServiceImpl implements OrderService {
             // Xử lý thanh toán cho người bán khi đơn hàng đã giao
             if (oldStatus != OrderStatus.DELIVERED) {
                 walletService.processOrderPayment(order); // Gọi phương thức xử lý thanh toán
+                eventPublisher.publishEvent(new OrderDeliveredEvent(order.getId(), order.getOrderDetails().stream()
+                        .map(orderDetail -> orderDetail.getProduct().getId())
+                        .collect(Collectors.toList())));
             }
         }
 
@@ -186,6 +276,23 @@ public class OrderServiceImpl implements OrderService {
         orderRepository.deleteById(orderId);
     }
 
+    // Units per product, in ascending product ID order
+    private Map<Long, Integer> cartQuantities(Cart cart) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (CartItem cartItem : cart.getCartItems()) {
+            quantities.merge(cartItem.getProduct().getId(), cartItem.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private String productName(Cart cart, Long productId) {
+        return cart.getCartItems().stream()
+                .filter(cartItem -> cartItem.getProduct().getId().equals(productId))
+                .map(cartItem -> cartItem.getProduct().getName())
+                .findFirst()
+                .orElse(String.valueOf(productId));
+    }
+
     private OrderDTO mapOrderToDTO(Order order) {
         List<OrderDetailDTO> orderDetailDTOs = order.getOrderDetails().stream()
                 .map(this::mapOrderDetailToDTO)
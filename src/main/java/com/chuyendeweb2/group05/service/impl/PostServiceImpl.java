@@ -17,6 +17,7 @@ import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -184,6 +185,12 @@ public class PostServiceImpl implements PostService {
         return activePostPage.map(this::mapToPostResponseDTO);
     }
 
+    @Override
+    public Slice<PostResponseDTO> getActivePostsSlice(Pageable pageable) {
+        return postRepository.findSliceByStatus(PostStatus.ACTIVE, pageable)
+                .map(this::mapToPostResponseDTO);
+    }
+
     private String saveImage(MultipartFile imageFile) throws IOException {
         File directory = new File(uploadDir);
         if (!directory.exists()) {
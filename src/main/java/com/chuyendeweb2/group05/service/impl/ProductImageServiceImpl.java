@@ -1,9 +1,11 @@
 package com.chuyendeweb2.group05.service.impl;
 
+import com.chuyendeweb2.group05.dto.ProductCreateRequestDTO;
 import com.chuyendeweb2.group05.dto.ProductImageDTO;
 import com.chuyendeweb2.group05.dto.ProductResponseDTO;
 import com.chuyendeweb2.group05.entity.meta.Product;
 import com.chuyendeweb2.group05.entity.meta.ProductImage;
+import com.chuyendeweb2.group05.event.ProductDetailInvalidatedEvent;
 import com.chuyendeweb2.group05.exception.ResourceNotFoundException;
 import com.chuyendeweb2.group05.repo.ProductImageRepository;
 import com.chuyendeweb2.group05.repo.ProductRepository;
@@ -12,9 +14,15 @@ import com.chuyendeweb2.group05.service.ProductImageStorageService;
 import com.chuyendeweb2.group05.service.ProductService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -32,6 +40,12 @@ public class ProductImageServiceImpl implements ProductImageService {
     @Autowired
     private ProductImageStorageService storageService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Override
     @Transactional
     public ProductImageDTO addProductImage(Long productId, String filename, String url, Boolean isPrimary) {
@@ -64,10 +78,61 @@ public class ProductImageServiceImpl implements ProductImageService {
         // Add image to product's collection and save
         product.getImages().add(productImage);
         ProductImage savedImage = productImageRepository.save(productImage);
+        eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(productId));
 
         return mapToDTO(savedImage);
     }
 
+    @Override
+    @Transactional
+    public void addProductImages(Long productId, List<String> filenames) {
+        if (filenames.isEmpty()) {
+            return;
+        }
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+
+        // Plain JDBC: IDENTITY keys stop Hibernate from batching these inserts
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("""
+                insert into product_images (product_id, filename, url, is_primary, created_at, updated_at)
+                values (?, ?, ?, false, ?, ?)
+                """, filenames, filenames.size(), (ps, filename) -> {
+            ps.setLong(1, productId);
+            ps.setString(2, filename);
+            ps.setString(3, storageService.getImageUrl(filename));
+            ps.setTimestamp(4, now);
+            ps.setTimestamp(5, now);
+        });
+        eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(productId));
+    }
+
+    @Override
+    @Transactional
+    public ProductResponseDTO createProductWithImages(ProductCreateRequestDTO requestDTO, Integer userId,
+            List<String> filenames, boolean primaryFirst) {
+        // Files of a product that never committed would only be orphans; once it
+        // has committed they are referenced and stay whatever happens afterwards
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    filenames.forEach(storageService::delete);
+                }
+            }
+        });
+
+        if (primaryFirst) {
+            requestDTO.setImageUrl(filenames.get(0));
+        }
+        ProductResponseDTO product = productService.createProduct(requestDTO, userId);
+
+        // The additional images (not primary) in one batch
+        addProductImages(product.getId(), filenames.subList(primaryFirst ? 1 : 0, filenames.size()));
+        return product;
+    }
+
     @Override
     public List<ProductImageDTO> getProductImages(Long productId) {
         List<ProductImage> images = productImageRepository.findByProductId(productId);
@@ -109,8 +174,10 @@ public class ProductImageServiceImpl implements ProductImageService {
         }
 
         // Remove from product and delete
+        Long productId = image.getProduct().getId();
         image.getProduct().removeImage(image);
         productImageRepository.delete(image);
+        eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(productId));
     }
 
     @Override
@@ -124,6 +191,7 @@ public class ProductImageServiceImpl implements ProductImageService {
 
         // Save and return
         ProductImage savedImage = productImageRepository.save(image);
+        eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(image.getProduct().getId()));
         return mapToDTO(savedImage);
     }
 
@@ -1,6 +1,7 @@
 package com.chuyendeweb2.group05.service.impl;
 
 import com.chuyendeweb2.group05.service.ProductImageStorageService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.UrlResource;
@@ -10,23 +11,51 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.MalformedURLException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 @Service
+@Slf4j
 public class ProductImageStorageServiceImpl implements ProductImageStorageService {
 
+    // Long enough for the longest signature we check (RIFF....WEBP)
+    private static final int SIGNATURE_LENGTH = 12;
+
     @Value("${project.image}")
     private String uploadDir;
 
+    @Value("${product.images.ingest-threads:4}")
+    private int ingestThreads;
+
+    @Value("${product.images.max-queued-writes:64}")
+    private int maxQueuedWrites;
+
     private Path root;
 
+    // Shared by all requests; when the queue is full the request thread writes its own files
+    private ThreadPoolExecutor executor;
+
     @PostConstruct
     @Override
     public void init() {
@@ -38,6 +67,13 @@ public class ProductImageStorageServiceImpl implements ProductImageStorageServic
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize storage location", e);
         }
+        executor = new ThreadPoolExecutor(ingestThreads, ingestThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxQueuedWrites), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
     }
 
     @Override
@@ -57,6 +93,112 @@ public class ProductImageStorageServiceImpl implements ProductImageStorageServic
         return filename;
     }
 
+    @Override
+    public List<String> saveAll(List<MultipartFile> files) throws IOException {
+        long start = System.nanoTime();
+        List<Future<String>> writes = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            writes.add(executor.submit(() -> writeImage(file)));
+        }
+
+        List<String> filenames = new ArrayList<>(files.size());
+        Throwable failure = null;
+        for (Future<String> write : writes) {
+            try {
+                filenames.add(write.get());
+            } catch (ExecutionException e) {
+                failure = failure != null ? failure : e.getCause();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                writes.forEach(pending -> pending.cancel(true));
+                failure = failure != null ? failure : new InterruptedIOException("Interrupted while saving images");
+                break;
+            }
+        }
+
+        if (failure != null) {
+            filenames.forEach(this::delete);
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new IOException("Failed to store images", failure);
+        }
+
+        // The renames above are only durable once the directory entry is flushed too
+        syncDirectory();
+        log.debug("Stored {} images in {} ms", filenames.size(), (System.nanoTime() - start) / 1_000_000);
+        return filenames;
+    }
+
+    // Streams the upload to a temporary file, fsyncs it and renames it into place
+    private String writeImage(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Failed to store empty file");
+        }
+
+        Path temp = Files.createTempFile(root, "upload-", ".part");
+        try {
+            String extension;
+            try (InputStream in = file.getInputStream();
+                    FileOutputStream out = new FileOutputStream(temp.toFile())) {
+                byte[] signature = new byte[SIGNATURE_LENGTH];
+                int length = in.readNBytes(signature, 0, SIGNATURE_LENGTH);
+                extension = imageExtension(signature, length);
+                if (extension == null) {
+                    throw new IllegalArgumentException("Unsupported image type: " + file.getOriginalFilename());
+                }
+                out.write(signature, 0, length);
+                in.transferTo(out);
+                out.getFD().sync();
+            }
+
+            String filename = UUID.randomUUID().toString() + extension;
+            Files.move(temp, root.resolve(filename), StandardCopyOption.ATOMIC_MOVE);
+            return filename;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Picks the extension from the file's leading bytes rather than from its client-supplied name
+    private static String imageExtension(byte[] b, int length) {
+        if (length >= 3 && (b[0] & 0xFF) == 0xFF && (b[1] & 0xFF) == 0xD8 && (b[2] & 0xFF) == 0xFF) {
+            return ".jpg";
+        }
+        if (length >= 8 && (b[0] & 0xFF) == 0x89 && startsWith(b, 1, "PNG\r\n\u001a\n")) {
+            return ".png";
+        }
+        if (length >= 6 && (startsWith(b, 0, "GIF87a") || startsWith(b, 0, "GIF89a"))) {
+            return ".gif";
+        }
+        if (length >= 12 && startsWith(b, 0, "RIFF") && startsWith(b, 8, "WEBP")) {
+            return ".webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, String ascii) {
+        byte[] expected = ascii.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < expected.length; i++) {
+            if (bytes[offset + i] != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(root, StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Not every platform can open a directory for syncing
+            log.debug("Could not sync {}: {}", root, e.getMessage());
+        }
+    }
+
     @Override
     public Resource load(String filename) {
         try {
@@ -0,0 +1,401 @@
+package com.chuyendeweb2.group05.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.chuyendeweb2.group05.dto.ProductCreateRequestDTO;
+import com.chuyendeweb2.group05.dto.ProductImportErrorDTO;
+import com.chuyendeweb2.group05.dto.ProductImportJobDTO;
+import com.chuyendeweb2.group05.entity.meta.Category;
+import com.chuyendeweb2.group05.entity.meta.Product;
+import com.chuyendeweb2.group05.enums.ProductStatus;
+import com.chuyendeweb2.group05.event.CategoryChangedEvent;
+import com.chuyendeweb2.group05.exception.ResourceNotFoundException;
+import com.chuyendeweb2.group05.repo.CategoryRepository;
+import com.chuyendeweb2.group05.service.ProductImportService;
+import com.chuyendeweb2.group05.util.CsvReader;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk product import from CSV or NDJSON. The upload is staged to a temp
+ * file and then streamed row by row on a small worker pool, so memory use
+ * does not depend on the file size. Valid rows become PENDING products,
+ * inserted with plain JDBC in batches of {@code product.import.batch-size},
+ * one transaction per batch. Rejected rows are reported by line number.
+ */
+@Service
+@Slf4j
+public class ProductImportServiceImpl implements ProductImportService {
+
+    public static final String FORMAT_CSV = "CSV";
+    public static final String FORMAT_NDJSON = "NDJSON";
+
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final List<String> CSV_REQUIRED_COLUMNS = List.of(
+            "categoryId", "name", "description", "price", "stockQuantity");
+    private static final String INSERT_SQL = """
+            insert into products (category_id, user_id, name, description, search_text, price,
+                                  stock_quantity, image_url, status, created_at, updated_at)
+            values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+    private final Duration jobRetention;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    // IDs of existing categories; dropped whenever a category changes
+    private volatile Set<Long> categoryIds;
+
+    public ProductImportServiceImpl(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            CategoryRepository categoryRepository,
+            ObjectMapper objectMapper,
+            Validator validator,
+            @Value("${product.import.batch-size:500}") int batchSize,
+            @Value("${product.import.max-concurrent-jobs:2}") int maxConcurrentJobs,
+            @Value("${product.import.max-queued-jobs:20}") int maxQueuedJobs,
+            @Value("${product.import.job-retention:1h}") Duration jobRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryRepository = categoryRepository;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+        this.jobRetention = jobRetention;
+        this.executor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(maxQueuedJobs));
+    }
+
+    @Override
+    public ProductImportJobDTO startImport(MultipartFile file, Integer sellerId) throws IOException {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Import file is empty");
+        }
+        String format = detectFormat(file);
+
+        Path staged = Files.createTempFile("product-import-", "." + format.toLowerCase(Locale.ROOT));
+        file.transferTo(staged);
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), sellerId, format);
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, staged));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.id);
+            Files.deleteIfExists(staged);
+            throw new IllegalStateException("Too many imports in progress, try again later");
+        }
+        return job.toDTO();
+    }
+
+    @Override
+    public ProductImportJobDTO getJob(String jobId, Integer sellerId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null || !job.sellerId.equals(sellerId)) {
+            throw new ResourceNotFoundException("Import job not found with id: " + jobId);
+        }
+        return job.toDTO();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categoryIds = null;
+    }
+
+    @Scheduled(fixedDelayString = "${product.import.cleanup-delay-ms:60000}")
+    public void removeExpiredJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(cutoff));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(ImportJob job, Path staged) {
+        job.status = "RUNNING";
+        long start = System.currentTimeMillis();
+        try {
+            BatchWriter writer = new BatchWriter(job);
+            if (FORMAT_CSV.equals(job.format)) {
+                readCsv(staged, writer);
+            } else {
+                readNdjson(staged, writer);
+            }
+            writer.flush();
+            job.status = "COMPLETED";
+            log.info("Imported {} of {} product rows for seller {} in {} ms", job.imported, job.processed,
+                    job.sellerId, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            log.error("Product import {} failed", job.id, e);
+            job.failureMessage = e.getMessage();
+            job.status = "FAILED";
+        } finally {
+            job.finishedAt = LocalDateTime.now();
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException e) {
+                log.warn("Could not delete staged import file {}", staged, e);
+            }
+        }
+    }
+
+    private void readCsv(Path staged, BatchWriter writer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(staged, StandardCharsets.UTF_8)) {
+            CsvReader csv = new CsvReader(reader);
+            List<String> header = csv.readRecord();
+            if (header == null) {
+                return;
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                // Strip a UTF-8 byte order mark left by spreadsheet exports
+                columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+            }
+            List<String> missing = CSV_REQUIRED_COLUMNS.stream()
+                    .filter(column -> !columns.containsKey(column.toLowerCase(Locale.ROOT)))
+                    .toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Missing CSV columns: " + String.join(", ", missing));
+            }
+
+            List<String> record;
+            while ((record = csv.readRecord()) != null) {
+                long line = csv.getRecordLineNumber();
+                try {
+                    writer.add(line, fromCsv(record, columns));
+                } catch (IllegalArgumentException e) {
+                    writer.reject(line, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void readNdjson(Path staged, BatchWriter writer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(staged, StandardCharsets.UTF_8)) {
+            long line = 0;
+            String json;
+            while ((json = reader.readLine()) != null) {
+                line++;
+                if (json.isBlank()) {
+                    continue;
+                }
+                try {
+                    writer.add(line, objectMapper.readValue(json, ProductCreateRequestDTO.class));
+                } catch (JsonProcessingException e) {
+                    writer.reject(line, "Invalid JSON: " + e.getOriginalMessage());
+                }
+            }
+        }
+    }
+
+    private static ProductCreateRequestDTO fromCsv(List<String> record, Map<String, Integer> columns) {
+        String stockQuantity = column(record, columns, "stockQuantity");
+        if (stockQuantity == null) {
+            throw new IllegalArgumentException("Stock quantity is required");
+        }
+        return ProductCreateRequestDTO.builder()
+                .categoryId(parse(column(record, columns, "categoryId"), "categoryId", Long::valueOf))
+                .name(column(record, columns, "name"))
+                .description(column(record, columns, "description"))
+                .price(parse(column(record, columns, "price"), "price", BigDecimal::new))
+                .stockQuantity(parse(stockQuantity, "stockQuantity", Integer::valueOf))
+                .imageUrl(column(record, columns, "imageUrl"))
+                .build();
+    }
+
+    // Trimmed value of the column, or null when absent or blank
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name.toLowerCase(Locale.ROOT));
+        if (index == null || index >= record.size() || !StringUtils.hasText(record.get(index))) {
+            return null;
+        }
+        return record.get(index).trim();
+    }
+
+    private static <T> T parse(String value, String column, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + column + ": " + value);
+        }
+    }
+
+    private static String detectFormat(MultipartFile file) {
+        String name = file.getOriginalFilename() != null ? file.getOriginalFilename().toLowerCase(Locale.ROOT) : "";
+        String contentType = file.getContentType() != null ? file.getContentType() : "";
+        if (name.endsWith(".csv") || contentType.startsWith("text/csv")) {
+            return FORMAT_CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl") || contentType.startsWith("application/x-ndjson")) {
+            return FORMAT_NDJSON;
+        }
+        throw new IllegalArgumentException("Unsupported import file; upload a .csv or .ndjson file");
+    }
+
+    private Set<Long> categoryIds() {
+        Set<Long> ids = categoryIds;
+        if (ids == null) {
+            ids = categoryRepository.findAll().stream().map(Category::getId).collect(Collectors.toUnmodifiableSet());
+            categoryIds = ids;
+        }
+        return ids;
+    }
+
+    // Validates rows and inserts the valid ones in batches
+    private class BatchWriter {
+        private final ImportJob job;
+        private final List<Object[]> rows = new ArrayList<>();
+        private final List<Long> lines = new ArrayList<>();
+
+        private BatchWriter(ImportJob job) {
+            this.job = job;
+        }
+
+        private void add(long line, ProductCreateRequestDTO dto) {
+            Set<ConstraintViolation<ProductCreateRequestDTO>> violations = validator.validate(dto);
+            if (!violations.isEmpty()) {
+                reject(line, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; ")));
+                return;
+            }
+            if (!categoryIds().contains(dto.getCategoryId())) {
+                reject(line, "Category not found with id: " + dto.getCategoryId());
+                return;
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            rows.add(new Object[] {
+                    dto.getCategoryId(),
+                    job.sellerId,
+                    dto.getName(),
+                    dto.getDescription(),
+                    Product.searchTextOf(dto.getName(), dto.getDescription()),
+                    dto.getPrice(),
+                    dto.getStockQuantity(),
+                    StringUtils.hasText(dto.getImageUrl()) ? dto.getImageUrl() : null,
+                    ProductStatus.PENDING.name(),
+                    now,
+                    now });
+            lines.add(line);
+            if (rows.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        private void reject(long line, String message) {
+            job.processed.incrementAndGet();
+            job.failed.incrementAndGet();
+            if (job.errors.size() < MAX_REPORTED_ERRORS) {
+                job.errors.add(ProductImportErrorDTO.builder().line(line).message(message).build());
+            }
+        }
+
+        private void flush() {
+            if (rows.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, rows));
+                job.processed.addAndGet(rows.size());
+                job.imported.addAndGet(rows.size());
+            } catch (DataAccessException e) {
+                String message = "Could not insert row: " + e.getMostSpecificCause().getMessage();
+                lines.forEach(line -> reject(line, message));
+            }
+            rows.clear();
+            lines.clear();
+        }
+    }
+
+    private static class ImportJob {
+        private final String id;
+        private final Integer sellerId;
+        private final String format;
+        private final LocalDateTime createdAt = LocalDateTime.now();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final List<ProductImportErrorDTO> errors = Collections.synchronizedList(new ArrayList<>());
+        private volatile String status = "QUEUED";
+        private volatile String failureMessage;
+        private volatile LocalDateTime finishedAt;
+
+        private ImportJob(String id, Integer sellerId, String format) {
+            this.id = id;
+            this.sellerId = sellerId;
+            this.format = format;
+        }
+
+        private ProductImportJobDTO toDTO() {
+            List<ProductImportErrorDTO> reported;
+            synchronized (errors) {
+                reported = new ArrayList<>(errors);
+            }
+            return ProductImportJobDTO.builder()
+                    .jobId(id)
+                    .status(status)
+                    .format(format)
+                    .processedRows(processed.get())
+                    .importedRows(imported.get())
+                    .failedRows(failed.get())
+                    .errors(reported)
+                    .failureMessage(failureMessage)
+                    .createdAt(createdAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+}
@@ -3,16 +3,29 @@ package com.chuyendeweb2.group05.service.impl;
 import lombok.RequiredArgsConstructor;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
-
+import org.springframework.util.StringUtils;
+
+import com.chuyendeweb2.group05.cache.ProductDetailCache;
+import com.chuyendeweb2.group05.dto.AutocompleteSuggestionDTO;
+import com.chuyendeweb2.group05.dto.BulkModerationRequestDTO;
+import com.chuyendeweb2.group05.dto.BulkModerationResultDTO;
+import com.chuyendeweb2.group05.dto.CursorPageResponseDTO;
+import com.chuyendeweb2.group05.dto.FacetedProductPageDTO;
+import com.chuyendeweb2.group05.dto.PriceHistogramDTO;
 import com.chuyendeweb2.group05.dto.ProductCreateRequestDTO;
+import com.chuyendeweb2.group05.dto.ProductFacetsDTO;
 import com.chuyendeweb2.group05.dto.ProductImageDTO;
 import com.chuyendeweb2.group05.dto.ProductResponseDTO;
 import com.chuyendeweb2.group05.dto.ProductUpdateRequestDTO;
@@ -21,12 +34,23 @@ import com.chuyendeweb2.group05.entity.meta.Product;
 import com.chuyendeweb2.group05.entity.meta.User;
 import com.chuyendeweb2.group05.enums.ProductStatus;
 import com.chuyendeweb2.group05.enums.Role;
+import com.chuyendeweb2.group05.event.ProductChangedEvent;
 import com.chuyendeweb2.group05.exception.ResourceNotFoundException;
 import com.chuyendeweb2.group05.exception.UnauthorizedException;
+import com.chuyendeweb2.group05.recommendation.CoPurchaseIndex;
 import com.chuyendeweb2.group05.repo.CategoryRepository;
 import com.chuyendeweb2.group05.repo.ProductRepository;
 import com.chuyendeweb2.group05.repo.UserRepository;
+import com.chuyendeweb2.group05.search.AutocompleteIndex;
+import com.chuyendeweb2.group05.search.PriceHistogramIndex;
+import com.chuyendeweb2.group05.search.ProductFacetIndex;
+import com.chuyendeweb2.group05.search.ProductSearchCriteria;
+import com.chuyendeweb2.group05.search.ProductSearchIndex;
+import com.chuyendeweb2.group05.search.RelatedProductsIndex;
+import com.chuyendeweb2.group05.search.TrigramIndex;
+import com.chuyendeweb2.group05.service.CategoryService;
 import com.chuyendeweb2.group05.service.ProductService;
+import com.chuyendeweb2.group05.specification.ProductCursor;
 import com.chuyendeweb2.group05.specification.ProductSpecification;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.JoinType;
@@ -37,18 +61,43 @@ import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+        // Pseudo sort field: order keyword results by search relevance
+        public static final String RELEVANCE_SORT = "relevance";
+
         private final ProductRepository productRepository;
         private final UserRepository userRepository;
         private final CategoryRepository categoryRepository;
+        private final ProductSearchIndex productSearchIndex;
+        private final ProductFacetIndex productFacetIndex;
+        private final ProductDetailCache productDetailCache;
+        private final RelatedProductsIndex relatedProductsIndex;
+        private final CoPurchaseIndex coPurchaseIndex;
+        private final AutocompleteIndex autocompleteIndex;
+        private final TrigramIndex trigramIndex;
+        private final PriceHistogramIndex priceHistogramIndex;
+        private final CategoryService categoryService;
+        private final ApplicationEventPublisher eventPublisher;
         @Value("${project.image}")
         private String uploadDir;
+        @Value("${product.search.max-hits:1000}")
+        private int maxSearchHits;
+        @Value("${product.moderation.chunk-size:500}")
+        private int moderationChunkSize;
+        @Value("${product.flash-sale.max-shards:64}")
+        private int maxFlashSaleShards;
 
         @Override
         @Transactional
@@ -82,15 +131,19 @@ public class ProductServiceImpl implements ProductService {
 
                 // Save the product first to get an ID
                 product = productRepository.save(product);
+                eventPublisher.publishEvent(ProductChangedEvent.of(product.getId()));
 
                 return mapToProductResponseDTO(product);
         }
 
         @Override
         public ProductResponseDTO getProductById(Long id) {
-                Product product = productRepository.findById(id)
-                                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-                return mapToProductResponseDTO(product);
+                return productDetailCache.get(id, productId -> {
+                        Product product = productRepository.findById(productId)
+                                        .orElseThrow(() -> new ResourceNotFoundException(
+                                                        "Product not found with id: " + productId));
+                        return mapToProductResponseDTO(product);
+                });
         }
 
         @Override
@@ -103,20 +156,240 @@ public class ProductServiceImpl implements ProductService {
                         Integer maxStock,
                         Pageable pageable) {
 
-                // Use specification to build the query
-                Page<Product> productsPage = productRepository.findAll(
-                                ProductSpecification.searchProducts(
-                                                keyword,
-                                                ProductStatus.ACTIVE,
-                                                categoryId,
-                                                null,
-                                                minPrice,
-                                                maxPrice,
-                                                minStock,
-                                                maxStock),
-                                pageable);
+                List<Long> rankedIds = searchActiveIds(keyword, categoryId, minPrice, maxPrice, minStock, maxStock);
+                if (rankedIds != null && rankedIds.isEmpty()) {
+                        return Page.empty(pageable);
+                }
+                // Relevance pages are cut from the full ranked list, which also gives the true total
+                if (rankedIds != null && isRelevanceSort(pageable) && pageable.isPaged()) {
+                        return new PageImpl<>(findRankedPage(rankedIds, pageable), pageable, rankedIds.size());
+                }
+
+                Specification<Product> spec = activeProductsSpec(rankedIds, keyword, categoryId, minPrice, maxPrice,
+                                minStock, maxStock);
+                if (rankedIds != null && isRelevanceSort(pageable)) {
+                        spec = spec.and(ProductSpecification.orderByRank(
+                                        rankedIds.subList(0, Math.min(rankedIds.size(), maxSearchHits))));
+                }
+
+                Page<ProductResponseDTO> productsPage = productRepository.findListing(spec, withoutRelevanceSort(pageable));
+
+                return productsPage;
+        }
+
+        @Override
+        public Slice<ProductResponseDTO> getActiveProductsSlice(
+                        String keyword,
+                        Long categoryId,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice,
+                        Integer minStock,
+                        Integer maxStock,
+                        Pageable pageable) {
+
+                List<Long> rankedIds = searchActiveIds(keyword, categoryId, minPrice, maxPrice, minStock, maxStock);
+                if (rankedIds != null && rankedIds.isEmpty()) {
+                        return new SliceImpl<>(List.of(), pageable, false);
+                }
+                if (rankedIds != null && isRelevanceSort(pageable) && pageable.isPaged()) {
+                        return new SliceImpl<>(findRankedPage(rankedIds, pageable), pageable,
+                                        pageable.getOffset() + pageable.getPageSize() < rankedIds.size());
+                }
+
+                Specification<Product> spec = activeProductsSpec(rankedIds, keyword, categoryId, minPrice, maxPrice,
+                                minStock, maxStock);
+                if (rankedIds != null && isRelevanceSort(pageable)) {
+                        spec = spec.and(ProductSpecification.orderByRank(
+                                        rankedIds.subList(0, Math.min(rankedIds.size(), maxSearchHits))));
+                }
+
+                return productRepository.findListingSlice(spec, withoutRelevanceSort(pageable));
+        }
+
+        @Override
+        public CursorPageResponseDTO<ProductResponseDTO> getActiveProductsAfter(
+                        String keyword,
+                        Long categoryId,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice,
+                        Integer minStock,
+                        Integer maxStock,
+                        String sortField,
+                        Sort.Direction direction,
+                        String cursor,
+                        int size) {
+
+                // A continuation token carries the sort it was issued for
+                ProductCursor position = cursor != null ? ProductCursor.decode(cursor) : null;
+                if (position != null) {
+                        sortField = position.getSortField();
+                        direction = position.getDirection();
+                } else if (!ProductCursor.SORT_FIELDS.contains(sortField)) {
+                        throw new IllegalArgumentException("Cursor pagination supports sorting by "
+                                        + ProductCursor.SORT_FIELDS);
+                }
 
-                return productsPage.map(this::mapToProductResponseDTO);
+                List<Long> rankedIds = searchActiveIds(keyword, categoryId, minPrice, maxPrice, minStock, maxStock);
+                if (rankedIds != null && rankedIds.isEmpty()) {
+                        return CursorPageResponseDTO.<ProductResponseDTO>builder()
+                                        .content(List.of())
+                                        .size(size)
+                                        .last(true)
+                                        .build();
+                }
+
+                Specification<Product> spec = activeProductsSpec(rankedIds, keyword, categoryId, minPrice, maxPrice,
+                                minStock, maxStock);
+                if (position != null) {
+                        spec = spec.and(ProductSpecification.after(position));
+                }
+
+                // Fetch one extra row to learn whether another page exists without counting
+                List<ProductResponseDTO> rows = productRepository.findListingWindow(spec,
+                                ProductCursor.sort(sortField, direction), size + 1);
+                boolean last = rows.size() <= size;
+                List<ProductResponseDTO> content = last ? rows : rows.subList(0, size);
+
+                return CursorPageResponseDTO.<ProductResponseDTO>builder()
+                                .content(content)
+                                .size(size)
+                                .nextCursor(last ? null
+                                                : ProductCursor.after(content.get(content.size() - 1), sortField,
+                                                                direction).encode())
+                                .last(last)
+                                .build();
+        }
+
+        @Override
+        public FacetedProductPageDTO getActiveProductsWithFacets(
+                        String keyword,
+                        Long categoryId,
+                        BigDecimal minPrice,
+                        BigDecimal maxPrice,
+                        Integer minStock,
+                        Integer maxStock,
+                        Pageable pageable) {
+
+                Page<ProductResponseDTO> results = getActiveProducts(
+                                keyword, categoryId, minPrice, maxPrice, minStock, maxStock, pageable);
+
+                // Facets need the keyword hits from the search index; skip them until both are loaded
+                boolean hasKeyword = StringUtils.hasText(keyword);
+                ProductFacetsDTO facets = null;
+                if (productFacetIndex.isReady() && (!hasKeyword || productSearchIndex.isReady())) {
+                        facets = productFacetIndex.facets(
+                                        hasKeyword ? keywordHits(keyword) : null,
+                                        ProductSearchCriteria.builder()
+                                                        .categoryIds(categorySubtree(categoryId))
+                                                        .minPrice(minPrice)
+                                                        .maxPrice(maxPrice)
+                                                        .minStock(minStock)
+                                                        .maxStock(maxStock)
+                                                        .build());
+                }
+
+                return FacetedProductPageDTO.builder()
+                                .results(results)
+                                .facets(facets)
+                                .build();
+        }
+
+        @Override
+        public PriceHistogramDTO getPriceHistogram(String keyword, Long categoryId) {
+                // Served from memory only; keyword hits need the search index as well
+                boolean hasKeyword = StringUtils.hasText(keyword);
+                if (!priceHistogramIndex.isReady() || (hasKeyword && !productSearchIndex.isReady())) {
+                        throw new IllegalStateException("Price histogram is not loaded yet");
+                }
+                return priceHistogramIndex.histogram(categorySubtree(categoryId),
+                                hasKeyword ? keywordHits(keyword) : null);
+        }
+
+        @Override
+        public List<ProductResponseDTO> getAlsoBoughtProducts(Long productId, int limit) {
+                List<Long> ids = coPurchaseIndex.alsoBought(productId, limit);
+                if (ids.isEmpty()) {
+                        return List.of();
+                }
+                return productRepository.findListing(
+                                ProductSpecification.idIn(ids)
+                                                .and(ProductSpecification.searchProducts(null, ProductStatus.ACTIVE,
+                                                                null, null, null, null, null, null))
+                                                .and(ProductSpecification.orderByRank(ids)),
+                                PageRequest.of(0, ids.size()))
+                                .getContent();
+        }
+
+        @Override
+        public List<AutocompleteSuggestionDTO> autocomplete(String prefix, int limit) {
+                return autocompleteIndex.suggest(prefix, limit);
+        }
+
+        // Every ranked ID from the search index, or null until it is loaded, when the keyword is matched in SQL
+        private List<Long> searchActiveIds(String keyword, Long categoryId, BigDecimal minPrice, BigDecimal maxPrice,
+                        Integer minStock, Integer maxStock) {
+                if (!StringUtils.hasText(keyword) || !productSearchIndex.isReady()) {
+                        return null;
+                }
+                List<Long> hits = productSearchIndex.search(ProductSearchCriteria.builder()
+                                .keyword(keyword)
+                                .categoryIds(categorySubtree(categoryId))
+                                .minPrice(minPrice)
+                                .maxPrice(maxPrice)
+                                .minStock(minStock)
+                                .maxStock(maxStock)
+                                .build(), Integer.MAX_VALUE);
+                // Nothing matched as typed: retry tolerating typos in product names
+                if (hits.isEmpty() && trigramIndex.isReady()) {
+                        return trigramIndex.search(keyword, maxSearchHits);
+                }
+                return hits;
+        }
+
+        // The category and its descendants, matching the subtree filter of ProductSpecification
+        private Set<Long> categorySubtree(Long categoryId) {
+                return categoryId != null ? categoryService.getSubtreeIds(categoryId) : null;
+        }
+
+        // Every product the keyword matches, including typo-tolerant matches when nothing matches exactly
+        private Set<Long> keywordHits(String keyword) {
+                Set<Long> hits = productSearchIndex.matchingIds(keyword);
+                if (hits.isEmpty() && trigramIndex.isReady()) {
+                        return new HashSet<>(trigramIndex.search(keyword, Integer.MAX_VALUE));
+                }
+                return hits;
+        }
+
+        private Specification<Product> activeProductsSpec(List<Long> rankedIds, String keyword, Long categoryId,
+                        BigDecimal minPrice, BigDecimal maxPrice, Integer minStock, Integer maxStock) {
+                // Keyword matching comes from the search index when available, as every ranked ID, so SQL
+                // only reads those rows by primary key; the remaining filters stay in SQL
+                boolean byIds = rankedIds != null;
+                Specification<Product> spec = ProductSpecification.searchProducts(
+                                byIds ? null : keyword,
+                                ProductStatus.ACTIVE,
+                                categoryId,
+                                null,
+                                minPrice,
+                                maxPrice,
+                                minStock,
+                                maxStock);
+                return byIds ? spec.and(ProductSpecification.idIn(rankedIds)) : spec;
+        }
+
+        // One page of ranked hits in rank order; the index holds only ACTIVE products
+        private List<ProductResponseDTO> findRankedPage(List<Long> rankedIds, Pageable pageable) {
+                if (pageable.getOffset() >= rankedIds.size()) {
+                        return List.of();
+                }
+                List<Long> pageIds = rankedIds.subList((int) pageable.getOffset(),
+                                (int) Math.min(pageable.getOffset() + pageable.getPageSize(), rankedIds.size()));
+                return productRepository.findListingWindow(
+                                ProductSpecification.idIn(pageIds)
+                                                .and(ProductSpecification.searchProducts(null, ProductStatus.ACTIVE,
+                                                                null, null, null, null, null, null))
+                                                .and(ProductSpecification.orderByRank(pageIds)),
+                                Sort.unsorted(), pageIds.size());
         }
 
         @Override
@@ -128,7 +401,7 @@ public class ProductServiceImpl implements ProductService {
                                 : pageable;
 
                 // Use specification to find active products sorted by creation date
-                Page<Product> newProductsPage = productRepository.findAll(
+                Page<ProductResponseDTO> newProductsPage = productRepository.findListing(
                                 ProductSpecification.searchProducts(
                                                 null, // No category filter
                                                 ProductStatus.ACTIVE, // Ensure products are ACTIVE
@@ -141,8 +414,7 @@ public class ProductServiceImpl implements ProductService {
                                 ),
                                 limitedPageable);
 
-                // Map to ProductResponseDTO
-                return newProductsPage.map(this::mapToProductResponseDTO);
+                return newProductsPage;
         }
 
         @Override
@@ -152,6 +424,22 @@ public class ProductServiceImpl implements ProductService {
                         Long categoryId,
                         Pageable pageable) {
 
+                // Serve from the precomputed similarity table when it has an entry for this product;
+                // only ACTIVE products are indexed, so a hit also proves the product exists
+                if (relatedProductsIndex.isReady()) {
+                        List<Long> relatedIds = relatedProductsIndex.related(productId, categoryId,
+                                        limit > 0 ? limit : pageable.getPageSize());
+                        if (!relatedIds.isEmpty()) {
+                                return productRepository.findListing(
+                                                ProductSpecification.idIn(relatedIds)
+                                                                .and(ProductSpecification.searchProducts(null,
+                                                                                ProductStatus.ACTIVE, null, null, null,
+                                                                                null, null, null))
+                                                                .and(ProductSpecification.orderByRank(relatedIds)),
+                                                PageRequest.of(0, relatedIds.size()));
+                        }
+                }
+
                 // Find the base product
                 Product baseProduct = productRepository.findById(productId)
                                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -170,7 +458,7 @@ public class ProductServiceImpl implements ProductService {
                                 : pageable;
 
                 // Use specification to find related products
-                Page<Product> relatedProductsPage = productRepository.findAll(
+                Page<ProductResponseDTO> relatedProductsPage = productRepository.findListing(
                                 Specification.where(
                                                 ProductSpecification.searchProducts(
                                                                 null, // No keyword filter
@@ -187,8 +475,7 @@ public class ProductServiceImpl implements ProductService {
                                 ),
                                 limitedPageable);
 
-                // Map to ProductResponseDTO
-                return relatedProductsPage.map(this::mapToProductResponseDTO);
+                return relatedProductsPage;
         }
 
         @Override
@@ -206,7 +493,7 @@ public class ProductServiceImpl implements ProductService {
                 }
 
                 // Use specification to find products by category and active status
-                Page<Product> categoryProductsPage = productRepository.findAll(
+                Page<ProductResponseDTO> categoryProductsPage = productRepository.findListing(
                                 ProductSpecification.searchProducts(
                                                 null, // No status filter, it will be filtered below as ACTIVE
                                                 ProductStatus.ACTIVE, // Ensure products are ACTIVE
@@ -219,8 +506,7 @@ public class ProductServiceImpl implements ProductService {
                                 ),
                                 pageable);
 
-                // Map to ProductResponseDTO
-                return categoryProductsPage.map(this::mapToProductResponseDTO);
+                return categoryProductsPage;
         }
 
         @Override
@@ -236,7 +522,7 @@ public class ProductServiceImpl implements ProductService {
                         Pageable pageable) {
 
                 // Use specification to build the query
-                Page<Product> productsPage = productRepository.findAll(
+                Page<ProductResponseDTO> productsPage = productRepository.findListing(
                                 ProductSpecification.searchProducts(
                                                 keyword,
                                                 status,
@@ -248,7 +534,7 @@ public class ProductServiceImpl implements ProductService {
                                                 maxStock),
                                 pageable);
 
-                return productsPage.map(this::mapToProductResponseDTO);
+                return productsPage;
         }
 
         @Override
@@ -268,7 +554,7 @@ public class ProductServiceImpl implements ProductService {
                                                 "User not found with id: " + sellerId));
 
                 // Use specification to build the query
-                Page<Product> productsPage = productRepository.findAll(
+                Page<ProductResponseDTO> productsPage = productRepository.findListing(
                                 ProductSpecification.searchProducts(
                                                 keyword,
                                                 status,
@@ -280,7 +566,7 @@ public class ProductServiceImpl implements ProductService {
                                                 maxStock),
                                 pageable);
 
-                return productsPage.map(this::mapToProductResponseDTO);
+                return productsPage;
         }
         // Add this method to the ProductServiceImpl class
 
@@ -302,17 +588,25 @@ public class ProductServiceImpl implements ProductService {
                 Specification<Product> spec = Specification.where(null);
 
                 // Add keyword search if provided
-                if (keyword != null && !keyword.trim().isEmpty()) {
-                        spec = spec.and((root, query, criteriaBuilder) -> {
-                                // Search in product name and description
-                                return criteriaBuilder.or(
-                                                criteriaBuilder.like(
-                                                                criteriaBuilder.lower(root.get("name")),
-                                                                "%" + keyword.toLowerCase() + "%"),
-                                                criteriaBuilder.like(
-                                                                criteriaBuilder.lower(root.get("description")),
-                                                                "%" + keyword.toLowerCase() + "%"));
-                        });
+                if (StringUtils.hasText(keyword) && productSearchIndex.isReady()) {
+                        List<Long> rankedIds = productSearchIndex.search(ProductSearchCriteria.builder()
+                                        .keyword(keyword)
+                                        .build(), Integer.MAX_VALUE);
+                        if (rankedIds.isEmpty() && trigramIndex.isReady()) {
+                                rankedIds = trigramIndex.search(keyword, maxSearchHits);
+                        }
+                        if (rankedIds.isEmpty()) {
+                                return Page.empty(pageable);
+                        }
+                        // Every hit is matched by ID; past max-hits only the top ones are ranked in SQL
+                        // and the rest follow by ID
+                        spec = spec.and(ProductSpecification.idIn(rankedIds));
+                        if (isRelevanceSort(pageable)) {
+                                spec = spec.and(ProductSpecification.orderByRank(
+                                                rankedIds.subList(0, Math.min(rankedIds.size(), maxSearchHits))));
+                        }
+                } else if (keyword != null && !keyword.trim().isEmpty()) {
+                        spec = spec.and(ProductSpecification.keyword(keyword));
                 }
 
                 // Filter by product ID if provided
@@ -339,10 +633,9 @@ public class ProductServiceImpl implements ProductService {
                 }
 
                 // Execute the query
-                Page<Product> productsPage = productRepository.findAll(spec, pageable);
+                Page<ProductResponseDTO> productsPage = productRepository.findListing(spec, withoutRelevanceSort(pageable));
 
-                // Map to ProductResponseDTO
-                return productsPage.map(this::mapToProductResponseDTO);
+                return productsPage;
         }
 
         @Override
@@ -361,7 +654,7 @@ public class ProductServiceImpl implements ProductService {
                                                 "User not found with id: " + sellerId));
 
                 // Use specification to build the query (chỉ lấy sản phẩm ACTIVE)
-                Page<Product> productsPage = productRepository.findAll(
+                Page<ProductResponseDTO> productsPage = productRepository.findListing(
                                 ProductSpecification.searchProducts(
                                                 keyword,
                                                 ProductStatus.ACTIVE, // Luôn lọc theo trạng thái ACTIVE
@@ -373,7 +666,7 @@ public class ProductServiceImpl implements ProductService {
                                                 maxStock),
                                 pageable);
 
-                return productsPage.map(this::mapToProductResponseDTO);
+                return productsPage;
         }
 
         @Override
@@ -409,6 +702,7 @@ public class ProductServiceImpl implements ProductService {
 
                 product.update(requestDTO, newCategory);
                 product = productRepository.save(product);
+                eventPublisher.publishEvent(ProductChangedEvent.of(product.getId()));
 
                 return mapToProductResponseDTO(product);
         }
@@ -433,7 +727,10 @@ public class ProductServiceImpl implements ProductService {
                         deleteImage(product.getImageUrl());
                 }
 
+                // Shard rows reference the product, so a running flash sale ends first
+                productRepository.endFlashSale(productId);
                 productRepository.delete(product);
+                eventPublisher.publishEvent(ProductChangedEvent.of(productId));
         }
 
         @Override
@@ -453,6 +750,7 @@ public class ProductServiceImpl implements ProductService {
 
                 product.activate(admin);
                 product = productRepository.save(product);
+                eventPublisher.publishEvent(ProductChangedEvent.of(product.getId()));
 
                 return mapToProductResponseDTO(product);
         }
@@ -474,10 +772,132 @@ public class ProductServiceImpl implements ProductService {
 
                 product.deactivate();
                 product = productRepository.save(product);
+                eventPublisher.publishEvent(ProductChangedEvent.of(product.getId()));
 
                 return mapToProductResponseDTO(product);
         }
 
+        // Not transactional: each chunk commits on its own, so a large batch never
+        // holds row locks for its whole run and indexes catch up chunk by chunk
+        @Override
+        public BulkModerationResultDTO approveProducts(BulkModerationRequestDTO request, Integer adminId) {
+                User admin = requireAdmin(adminId, "Only admins can approve products");
+                return moderate(request, ids -> productRepository.approveAll(ids, admin, LocalDateTime.now()));
+        }
+
+        @Override
+        public BulkModerationResultDTO deactivateProducts(BulkModerationRequestDTO request, Integer adminId) {
+                requireAdmin(adminId, "Only admins can deactivate products");
+                return moderate(request, ids -> productRepository.deactivateAll(ids, LocalDateTime.now()));
+        }
+
+        // While the sale runs, products.stock_quantity only mirrors the shard sums
+        // (FlashSaleStockSync), so stock edits to the product are overwritten
+        @Override
+        @Transactional
+        public ProductResponseDTO startFlashSale(Long productId, int shards, Integer adminId) {
+                requireAdmin(adminId, "Only admins can start flash sales");
+                if (shards < 2 || shards > maxFlashSaleShards) {
+                        throw new IllegalArgumentException(
+                                        "Shard count must be between 2 and " + maxFlashSaleShards);
+                }
+                Product product = productRepository.findById(productId)
+                                .orElseThrow(() -> new ResourceNotFoundException(
+                                                "Product not found with id: " + productId));
+                if (!productRepository.startFlashSale(productId, shards)) {
+                        throw new IllegalArgumentException("Product is already in a flash sale: " + productId);
+                }
+                return mapToProductResponseDTO(product);
+        }
+
+        @Override
+        @Transactional
+        public ProductResponseDTO endFlashSale(Long productId, Integer adminId) {
+                requireAdmin(adminId, "Only admins can end flash sales");
+                Product product = productRepository.findById(productId)
+                                .orElseThrow(() -> new ResourceNotFoundException(
+                                                "Product not found with id: " + productId));
+                Integer stock = productRepository.endFlashSale(productId);
+                if (stock == null) {
+                        throw new IllegalArgumentException("Product is not in a flash sale: " + productId);
+                }
+                // Already written by the repository; keeps the managed entity from flushing the old value
+                product.setStockQuantity(stock);
+                eventPublisher.publishEvent(ProductChangedEvent.of(productId));
+                return mapToProductResponseDTO(product);
+        }
+
+        private User requireAdmin(Integer adminId, String message) {
+                User admin = userRepository.findById(adminId)
+                                .orElseThrow(() -> new ResourceNotFoundException(
+                                                "Admin not found with id: " + adminId));
+                if (admin.getRole() != Role.ADMIN) {
+                        throw new UnauthorizedException(message);
+                }
+                return admin;
+        }
+
+        // Applies the update chunk by chunk and notifies the catalog listeners once per chunk
+        private BulkModerationResultDTO moderate(BulkModerationRequestDTO request,
+                        ToIntFunction<List<Long>> update) {
+                if (request == null) {
+                        throw new IllegalArgumentException("Request body is required");
+                }
+                int chunkSize = Math.max(1, moderationChunkSize);
+                long matched = 0;
+                long updated = 0;
+                int batches = 0;
+
+                List<Long> productIds = request.getProductIds();
+                if (productIds != null && !productIds.isEmpty()) {
+                        List<Long> distinctIds = productIds.stream()
+                                        .filter(id -> id != null)
+                                        .distinct()
+                                        .collect(Collectors.toList());
+                        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+                                List<Long> chunk = new ArrayList<>(
+                                                distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size())));
+                                matched += chunk.size();
+                                updated += applyChunk(chunk, update);
+                                batches++;
+                        }
+                } else {
+                        // Same filter as getPendingProducts, walked in keyset order so rows leaving
+                        // the filter as they are updated cannot shift later chunks
+                        Specification<Product> filter = ProductSpecification.searchProducts(
+                                        request.getKeyword(),
+                                        ProductStatus.PENDING,
+                                        request.getCategoryId(),
+                                        null,
+                                        request.getMinPrice(),
+                                        request.getMaxPrice(),
+                                        request.getMinStock(),
+                                        request.getMaxStock());
+                        long lastId = 0;
+                        List<Long> chunk;
+                        while (!(chunk = productRepository.findIdsAfter(filter, lastId, chunkSize)).isEmpty()) {
+                                lastId = chunk.get(chunk.size() - 1);
+                                matched += chunk.size();
+                                updated += applyChunk(chunk, update);
+                                batches++;
+                        }
+                }
+
+                return BulkModerationResultDTO.builder()
+                                .matched(matched)
+                                .updated(updated)
+                                .batches(batches)
+                                .build();
+        }
+
+        private int applyChunk(List<Long> chunk, ToIntFunction<List<Long>> update) {
+                int changed = update.applyAsInt(chunk);
+                if (changed > 0) {
+                        eventPublisher.publishEvent(new ProductChangedEvent(chunk));
+                }
+                return changed;
+        }
+
         @Override
         public Page<ProductResponseDTO> getPendingProducts(
                         String keyword,
@@ -489,7 +909,7 @@ public class ProductServiceImpl implements ProductService {
                         Pageable pageable) {
 
                 // Use specification to build the query
-                Page<Product> pendingProductsPage = productRepository.findAll(
+                Page<ProductResponseDTO> pendingProductsPage = productRepository.findListing(
                                 ProductSpecification.searchProducts(
                                                 keyword,
                                                 ProductStatus.PENDING,
@@ -501,7 +921,19 @@ public class ProductServiceImpl implements ProductService {
                                                 maxStock),
                                 pageable);
 
-                return pendingProductsPage.map(this::mapToProductResponseDTO);
+                return pendingProductsPage;
+        }
+
+        private boolean isRelevanceSort(Pageable pageable) {
+                return pageable.getSort().getOrderFor(RELEVANCE_SORT) != null;
+        }
+
+        // "relevance" is not a column, so it must never reach the JPA query
+        private Pageable withoutRelevanceSort(Pageable pageable) {
+                if (!isRelevanceSort(pageable)) {
+                        return pageable;
+                }
+                return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
         }
 
         // Helper method to map Product entity to ProductResponseDTO
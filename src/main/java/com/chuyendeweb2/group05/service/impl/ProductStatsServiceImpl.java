@@ -0,0 +1,44 @@
+package com.chuyendeweb2.group05.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.chuyendeweb2.group05.cache.ProductDetailCache;
+import com.chuyendeweb2.group05.repo.ProductRepository;
+import com.chuyendeweb2.group05.service.ProductStatsService;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductStatsServiceImpl implements ProductStatsService {
+
+    private final ProductRepository productRepository;
+    private final ProductDetailCache productDetailCache;
+
+    @Value("${product.stats.reconcile-batch-size:1000}")
+    private int batchSize;
+
+    // Each ID range runs in its own short transaction to keep row locks brief
+    @Override
+    public int reconcileAll() {
+        long start = System.currentTimeMillis();
+        long maxId = productRepository.findMaxId();
+        int updated = 0;
+        for (long fromId = 1; fromId <= maxId; fromId += batchSize) {
+            updated += productRepository.reconcileStats(fromId, fromId + batchSize - 1);
+        }
+        // Counters may have changed for any product
+        productDetailCache.invalidateAll();
+        log.info("Reconciled rating/favorite counters of {} products in {} ms", updated,
+                System.currentTimeMillis() - start);
+        return updated;
+    }
+
+    @Scheduled(cron = "${product.stats.reconcile-cron:0 30 3 * * *}")
+    public void scheduledReconcile() {
+        reconcileAll();
+    }
+}
@@ -1,8 +1,10 @@
 package com.chuyendeweb2.group05.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,6 +14,7 @@ import com.chuyendeweb2.group05.dto.ReviewRequest;
 import com.chuyendeweb2.group05.entity.meta.Product;
 import com.chuyendeweb2.group05.entity.meta.Review;
 import com.chuyendeweb2.group05.entity.meta.User;
+import com.chuyendeweb2.group05.event.ProductDetailInvalidatedEvent;
 import com.chuyendeweb2.group05.repo.ProductRepository;
 import com.chuyendeweb2.group05.repo.ReviewRepository;
 import com.chuyendeweb2.group05.service.ReviewService;
@@ -25,6 +28,7 @@ public class ReviewServiceImpl implements ReviewService {
 
     private final ReviewRepository reviewRepository;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Page<ReviewDTO> getAllReviews(Pageable pageable) {
@@ -46,6 +50,8 @@ public class ReviewServiceImpl implements ReviewService {
                 .verified(false)
                 .build();
         review = reviewRepository.save(review);
+        productRepository.adjustRatingStats(product.getId(), review.getRating(), 1);
+        eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(product.getId()));
         return mapToDTO(review);
     }
 
@@ -57,8 +63,14 @@ public class ReviewServiceImpl implements ReviewService {
         if (!review.getUser().equals(user)) {
             throw new RuntimeException("Unauthorized");
         }
+        Integer previousRating = review.getRating();
         review.setRating(reviewRequest.getRating());
         review.setComment(reviewRequest.getComment());
+        if (!previousRating.equals(review.getRating())) {
+            productRepository.adjustRatingStats(review.getProduct().getId(), previousRating, -1);
+            productRepository.adjustRatingStats(review.getProduct().getId(), review.getRating(), 1);
+            eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(review.getProduct().getId()));
+        }
         return mapToDTO(reviewRepository.save(review));
     }
 
@@ -71,6 +83,8 @@ public class ReviewServiceImpl implements ReviewService {
             throw new RuntimeException("Unauthorized");
         }
         reviewRepository.delete(review);
+        productRepository.adjustRatingStats(review.getProduct().getId(), review.getRating(), -1);
+        eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(review.getProduct().getId()));
     }
 
     @Override
@@ -79,6 +93,8 @@ public class ReviewServiceImpl implements ReviewService {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new RuntimeException("Review not found"));
         reviewRepository.delete(review);
+        productRepository.adjustRatingStats(review.getProduct().getId(), review.getRating(), -1);
+        eventPublisher.publishEvent(new ProductDetailInvalidatedEvent(review.getProduct().getId()));
     }
 
     @Override
@@ -104,6 +120,22 @@ public class ReviewServiceImpl implements ReviewService {
                 .map(this::mapToDTO);
     }
 
+    @Override
+    public Slice<ReviewDTO> getProductReviewsSlice(Long productId, Pageable pageable) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        return reviewRepository.findSliceByProduct(product, pageable)
+                .map(this::mapToDTO);
+    }
+
+    @Override
+    public Slice<ReviewDTO> getVerifiedProductReviewsSlice(Long productId, Pageable pageable) {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+        return reviewRepository.findSliceByProductAndVerified(product, true, pageable)
+                .map(this::mapToDTO);
+    }
+
     @Override
     public List<ReviewDTO> getUserReviews(User user) {
         return reviewRepository.findByUser(user)
@@ -140,42 +172,16 @@ public class ReviewServiceImpl implements ReviewService {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
 
-        List<Review> reviews = reviewRepository.findByProduct(product);
-
-        if (reviews.isEmpty()) {
-            return RatingStatsDTO.builder()
-                    .productId(productId)
-                    .averageRating(0.0)
-                    .totalReviews(0L)
-                    .fiveStarCount(0L)
-                    .fourStarCount(0L)
-                    .threeStarCount(0L)
-                    .twoStarCount(0L)
-                    .oneStarCount(0L)
-                    .build();
-        }
-
-        long totalReviews = reviews.size();
-        double averageRating = reviews.stream()
-                .mapToInt(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        long fiveStarCount = reviews.stream().filter(r -> r.getRating() == 5).count();
-        long fourStarCount = reviews.stream().filter(r -> r.getRating() == 4).count();
-        long threeStarCount = reviews.stream().filter(r -> r.getRating() == 3).count();
-        long twoStarCount = reviews.stream().filter(r -> r.getRating() == 2).count();
-        long oneStarCount = reviews.stream().filter(r -> r.getRating() == 1).count();
-
+        // Served from the denormalized counters on the product row
         return RatingStatsDTO.builder()
                 .productId(productId)
-                .averageRating(averageRating)
-                .totalReviews(totalReviews)
-                .fiveStarCount(fiveStarCount)
-                .fourStarCount(fourStarCount)
-                .threeStarCount(threeStarCount)
-                .twoStarCount(twoStarCount)
-                .oneStarCount(oneStarCount)
+                .averageRating(product.getAverageRating())
+                .totalReviews((long) product.getRatingCount())
+                .fiveStarCount((long) product.getRatingFiveCount())
+                .fourStarCount((long) product.getRatingFourCount())
+                .threeStarCount((long) product.getRatingThreeCount())
+                .twoStarCount((long) product.getRatingTwoCount())
+                .oneStarCount((long) product.getRatingOneCount())
                 .build();
     }
 
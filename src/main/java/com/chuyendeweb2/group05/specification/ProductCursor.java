@@ -0,0 +1,88 @@
+package com.chuyendeweb2.group05.specification;
+
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import com.chuyendeweb2.group05.dto.ProductResponseDTO;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Position in a keyset-paginated product listing: the sort key and ID of the
+ * last product returned. Clients receive it as an opaque token and send it
+ * back to fetch the next page.
+ */
+@Getter
+public class ProductCursor {
+
+    public static final Set<String> SORT_FIELDS = Set.of("id", "price", "createdAt");
+
+    private static final String SEPARATOR = "|";
+
+    private final String sortField;
+    private final Sort.Direction direction;
+    private final Comparable<?> lastValue;
+    private final Long lastId;
+
+    private ProductCursor(String sortField, Sort.Direction direction, Comparable<?> lastValue, Long lastId) {
+        this.sortField = sortField;
+        this.direction = direction;
+        this.lastValue = lastValue;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Builds the cursor pointing just after {@code last}.
+     */
+    public static ProductCursor after(ProductResponseDTO last, String sortField, Sort.Direction direction) {
+        Comparable<?> value = switch (sortField) {
+            case "price" -> last.getPrice();
+            case "createdAt" -> last.getCreatedAt();
+            default -> last.getId();
+        };
+        return new ProductCursor(sortField, direction, value, last.getId());
+    }
+
+    /**
+     * Parses a token produced by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length != 4 || !SORT_FIELDS.contains(parts[0])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Long lastId = Long.valueOf(parts[3]);
+            Comparable<?> value = switch (parts[0]) {
+                case "price" -> new BigDecimal(parts[2]);
+                case "createdAt" -> LocalDateTime.parse(parts[2]);
+                default -> lastId;
+            };
+            return new ProductCursor(parts[0], Sort.Direction.fromString(parts[1]), value, lastId);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    public String encode() {
+        String value = lastValue instanceof BigDecimal price ? price.toPlainString() : String.valueOf(lastValue);
+        String raw = sortField + SEPARATOR + direction.name() + SEPARATOR + value + SEPARATOR + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sort matching this cursor's seek predicate; ID breaks ties.
+     */
+    public static Sort sort(String sortField, Sort.Direction direction) {
+        return "id".equals(sortField)
+                ? Sort.by(direction, "id")
+                : Sort.by(direction, sortField).and(Sort.by(direction, "id"));
+    }
+}
@@ -1,7 +1,13 @@
 package com.chuyendeweb2.group05.specification;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 
@@ -9,9 +15,11 @@ import com.chuyendeweb2.group05.entity.meta.Category;
 import com.chuyendeweb2.group05.entity.meta.Product;
 import com.chuyendeweb2.group05.entity.meta.User;
 import com.chuyendeweb2.group05.enums.ProductStatus;
+import com.chuyendeweb2.group05.search.VietnameseAnalyzer;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class ProductSpecification {
@@ -31,11 +39,7 @@ public class ProductSpecification {
 
             // Filter by keyword (name or description)
             if (StringUtils.hasText(keyword)) {
-                String likePattern = "%" + keyword.toLowerCase() + "%";
-                predicates.add(
-                        criteriaBuilder.or(
-                                criteriaBuilder.like(criteriaBuilder.lower(root.get("name")), likePattern),
-                                criteriaBuilder.like(criteriaBuilder.lower(root.get("description")), likePattern)));
+                predicates.add(keywordPredicate(root, criteriaBuilder, keyword));
             }
 
             // Filter by status
@@ -43,10 +47,10 @@ public class ProductSpecification {
                 predicates.add(criteriaBuilder.equal(root.get("status"), status));
             }
 
-            // Filter by category
+            // Filter by category, including its subcategories
             if (categoryId != null) {
                 Join<Product, Category> categoryJoin = root.join("category");
-                predicates.add(criteriaBuilder.equal(categoryJoin.get("id"), categoryId));
+                predicates.add(inCategorySubtree(query, criteriaBuilder, categoryJoin, categoryId));
             }
 
             // Filter by seller
@@ -74,4 +78,86 @@ public class ProductSpecification {
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
-}
\ No newline at end of file
+
+    // Match the keyword against name and description, with or without diacritics
+    public static Specification<Product> keyword(String keyword) {
+        return (root, query, criteriaBuilder) -> keywordPredicate(root, criteriaBuilder, keyword);
+    }
+
+    // Restrict to the given product IDs (e.g. hits from the search index)
+    public static Specification<Product> idIn(Collection<Long> ids) {
+        return (root, query, criteriaBuilder) -> root.get("id").in(ids);
+    }
+
+    /**
+     * Orders results by the position of their ID in {@code rankedIds}; rows not
+     * in the list follow the ranked ones, by ID. Only applied to the select
+     * query; Spring Data clears it on the count query.
+     */
+    public static Specification<Product> orderByRank(List<Long> rankedIds) {
+        return (root, query, criteriaBuilder) -> {
+            // field() is 0 for unlisted IDs, so list in reverse and sort descending to put them last
+            List<Expression<?>> arguments = new ArrayList<>();
+            arguments.add(root.get("id"));
+            for (int i = rankedIds.size() - 1; i >= 0; i--) {
+                arguments.add(criteriaBuilder.literal(rankedIds.get(i)));
+            }
+            query.orderBy(
+                    criteriaBuilder.desc(criteriaBuilder.function("field", Integer.class,
+                            arguments.toArray(new Expression<?>[0]))),
+                    criteriaBuilder.asc(root.get("id")));
+            return null;
+        };
+    }
+
+    /**
+     * Keyset predicate: products strictly after the cursor in its sort order,
+     * with the product ID breaking ties between equal sort keys.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public static Specification<Product> after(ProductCursor cursor) {
+        return (root, query, criteriaBuilder) -> {
+            boolean ascending = cursor.getDirection().isAscending();
+            Path<Long> id = root.get("id");
+            Predicate idAfter = ascending
+                    ? criteriaBuilder.greaterThan(id, cursor.getLastId())
+                    : criteriaBuilder.lessThan(id, cursor.getLastId());
+            if ("id".equals(cursor.getSortField())) {
+                return idAfter;
+            }
+
+            Path<Comparable> key = root.get(cursor.getSortField());
+            Comparable value = cursor.getLastValue();
+            Predicate keyAfter = ascending
+                    ? criteriaBuilder.greaterThan(key, value)
+                    : criteriaBuilder.lessThan(key, value);
+            return criteriaBuilder.or(keyAfter, criteriaBuilder.and(criteriaBuilder.equal(key, value), idAfter));
+        };
+    }
+
+    // category.lft within the nested-set bounds of the requested category: one range over the whole subtree
+    private static Predicate inCategorySubtree(CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder,
+            Join<Product, Category> category, Long categoryId) {
+        Subquery<Integer> lft = query.subquery(Integer.class);
+        Root<Category> lftRoot = lft.from(Category.class);
+        lft.select(lftRoot.get("lft")).where(criteriaBuilder.equal(lftRoot.get("id"), categoryId));
+
+        Subquery<Integer> rgt = query.subquery(Integer.class);
+        Root<Category> rgtRoot = rgt.from(Category.class);
+        rgt.select(rgtRoot.get("rgt")).where(criteriaBuilder.equal(rgtRoot.get("id"), categoryId));
+
+        return criteriaBuilder.between(category.get("lft"), lft, rgt);
+    }
+
+    // Every query token must occur in the folded search text
+    private static Predicate keywordPredicate(Root<Product> root, CriteriaBuilder criteriaBuilder, String keyword) {
+        List<String> tokens = VietnameseAnalyzer.tokenizeQuery(keyword);
+        if (tokens.isEmpty()) {
+            return criteriaBuilder.disjunction();
+        }
+        Path<String> searchText = root.get("searchText");
+        return criteriaBuilder.and(tokens.stream()
+                .map(token -> criteriaBuilder.like(searchText, "%" + token + "%"))
+                .toArray(Predicate[]::new));
+    }
+}
@@ -0,0 +1,75 @@
+package com.chuyendeweb2.group05.util;
+
+/**
+ * Bounded list of IDs with scores, best first, backed by primitive arrays.
+ * Immutable: {@link #offer} returns a new instance when the list changes, so
+ * instances can be shared between threads without locking.
+ */
+public final class ScoredIds {
+
+    public static final ScoredIds EMPTY = new ScoredIds(new long[0], new float[0]);
+
+    private final long[] ids;
+    private final float[] scores;
+
+    private ScoredIds(long[] ids, float[] scores) {
+        this.ids = ids;
+        this.scores = scores;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public long idAt(int index) {
+        return ids[index];
+    }
+
+    public float scoreAt(int index) {
+        return scores[index];
+    }
+
+    /**
+     * Returns a list that also contains {@code id} with {@code score}, keeping
+     * at most {@code capacity} entries. A previous entry for the same ID is
+     * replaced.
+     */
+    public ScoredIds offer(long id, float score, int capacity) {
+        int size = ids.length;
+        if (size == capacity && score <= scores[size - 1]) {
+            return this;
+        }
+        int existing = -1;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                existing = i;
+                break;
+            }
+        }
+        int newSize = existing >= 0 ? size : Math.min(size + 1, capacity);
+        long[] newIds = new long[newSize];
+        float[] newScores = new float[newSize];
+        int out = 0;
+        boolean inserted = false;
+        for (int i = 0; i < size && out < newSize; i++) {
+            if (i == existing) {
+                continue;
+            }
+            if (!inserted && score > scores[i]) {
+                newIds[out] = id;
+                newScores[out++] = score;
+                inserted = true;
+                if (out == newSize) {
+                    break;
+                }
+            }
+            newIds[out] = ids[i];
+            newScores[out++] = scores[i];
+        }
+        if (!inserted && out < newSize) {
+            newIds[out] = id;
+            newScores[out] = score;
+        }
+        return new ScoredIds(newIds, newScores);
+    }
+}
@@ -0,0 +1,266 @@
+-- Schema as previously generated by Hibernate (ddl-auto: update), before the
+-- columns added by later migrations.
+-- Existing databases are baselined at this version and skip it.
+
+create table users (
+    id integer not null,
+    first_name varchar(100) not null,
+    last_name varchar(100) not null,
+    address varchar(100),
+    mobile_number varchar(20),
+    gender varchar(32),
+    email varchar(100) not null,
+    password varchar(255),
+    role varchar(32),
+    two_factor_verified bit not null,
+    two_factor_enabled bit,
+    enabled bit,
+    primary key (id),
+    constraint uk_users_email unique (email)
+) engine=InnoDB;
+
+create table users_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into users_seq values (1);
+
+create table token (
+    id integer not null,
+    token varchar(255),
+    token_type varchar(32),
+    revoked bit not null,
+    expired bit not null,
+    user_id integer,
+    primary key (id),
+    constraint uk_token_token unique (token),
+    constraint fk_token_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table token_seq (
+    next_val bigint
+) engine=InnoDB;
+insert into token_seq values (1);
+
+create table categories (
+    id bigint not null auto_increment,
+    name varchar(255) not null,
+    parent_id bigint,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    is_active bit not null default 1,
+    primary key (id),
+    constraint uk_categories_name unique (name),
+    constraint fk_categories_parent foreign key (parent_id) references categories (id)
+) engine=InnoDB;
+
+create table products (
+    id bigint not null auto_increment,
+    category_id bigint not null,
+    user_id integer not null,
+    name varchar(255) not null,
+    description varchar(1000) not null,
+    price decimal(38,2) not null,
+    stock_quantity integer not null,
+    image_url varchar(255),
+    status varchar(32) not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    approved_at datetime(6),
+    approved_by integer,
+    primary key (id),
+    constraint fk_products_category foreign key (category_id) references categories (id),
+    constraint fk_products_seller foreign key (user_id) references users (id),
+    constraint fk_products_approved_by foreign key (approved_by) references users (id)
+) engine=InnoDB;
+
+create table product_images (
+    id bigint not null auto_increment,
+    product_id bigint not null,
+    filename varchar(255) not null,
+    url varchar(255) not null,
+    is_primary bit not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_product_images_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table carts (
+    id bigint not null auto_increment,
+    user_id integer not null,
+    total_amount decimal(38,2) not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    primary key (id),
+    constraint uk_carts_user unique (user_id),
+    constraint fk_carts_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table cart_items (
+    id bigint not null auto_increment,
+    cart_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    seller_id bigint not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    deleted bit not null,
+    primary key (id),
+    constraint fk_cart_items_cart foreign key (cart_id) references carts (id),
+    constraint fk_cart_items_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table wallets (
+    id bigint not null auto_increment,
+    user_id integer not null,
+    balance decimal(19,2) not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint uk_wallets_user unique (user_id),
+    constraint fk_wallets_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table withdrawal_transactions (
+    id bigint not null auto_increment,
+    user_id integer not null,
+    transaction_code varchar(255) not null,
+    amount decimal(19,2) not null,
+    status varchar(255) not null,
+    error_code varchar(255),
+    bank_code varchar(255),
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_withdrawal_transactions_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table posts (
+    id bigint not null auto_increment,
+    user_id integer not null,
+    title varchar(255) not null,
+    content varchar(5000) not null,
+    thumbnail_url varchar(255),
+    status varchar(32) not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    published_at datetime(6),
+    approved_by integer,
+    primary key (id),
+    constraint fk_posts_author foreign key (user_id) references users (id),
+    constraint fk_posts_approved_by foreign key (approved_by) references users (id)
+) engine=InnoDB;
+
+create table reviews (
+    id bigint not null auto_increment,
+    user_id integer not null,
+    product_id bigint not null,
+    rating integer not null,
+    comment varchar(1000) not null,
+    verified bit not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_reviews_user foreign key (user_id) references users (id),
+    constraint fk_reviews_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table review_replies (
+    id bigint not null auto_increment,
+    review_id bigint not null,
+    user_id integer not null,
+    content varchar(1000) not null,
+    is_admin bit not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_review_replies_review foreign key (review_id) references reviews (id),
+    constraint fk_review_replies_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table favorites (
+    id bigint not null auto_increment,
+    user_id integer not null,
+    product_id bigint not null,
+    created_at datetime(6),
+    primary key (id),
+    constraint uk_favorites_user_product unique (user_id, product_id),
+    constraint fk_favorites_user foreign key (user_id) references users (id),
+    constraint fk_favorites_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table orders (
+    id bigint not null auto_increment,
+    user_id integer not null,
+    total_amount decimal(38,2) not null,
+    shipping_address varchar(255) not null,
+    contact_phone varchar(255) not null,
+    status varchar(32) not null,
+    payment_method varchar(32) not null,
+    payment_status varchar(32) not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_orders_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+create table order_details (
+    id bigint not null auto_increment,
+    order_id bigint not null,
+    product_id bigint not null,
+    quantity integer not null,
+    price decimal(19,2) not null,
+    product_name varchar(255) not null,
+    product_description varchar(1000) not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id),
+    constraint fk_order_details_order foreign key (order_id) references orders (id),
+    constraint fk_order_details_product foreign key (product_id) references products (id)
+) engine=InnoDB;
+
+create table website_revenue (
+    id bigint not null auto_increment,
+    amount decimal(19,2) not null,
+    order_id bigint,
+    product_id bigint,
+    seller_id integer,
+    description varchar(255) not null,
+    created_at datetime(6),
+    primary key (id),
+    constraint fk_website_revenue_order foreign key (order_id) references orders (id),
+    constraint fk_website_revenue_product foreign key (product_id) references products (id),
+    constraint fk_website_revenue_seller foreign key (seller_id) references users (id)
+) engine=InnoDB;
+
+create table banners (
+    id bigint not null auto_increment,
+    title varchar(255) not null,
+    image_url varchar(255) not null,
+    link_url varchar(255),
+    description varchar(255),
+    display_order integer,
+    is_active bit not null,
+    created_at datetime(6),
+    updated_at datetime(6),
+    primary key (id)
+) engine=InnoDB;
+
+create table otps (
+    id integer not null auto_increment,
+    email varchar(255),
+    otp varchar(255),
+    expiry_time datetime(6),
+    used bit not null,
+    primary key (id)
+) engine=InnoDB;
+
+create table verification_tokens (
+    id integer not null auto_increment,
+    token varchar(255),
+    user_id integer,
+    expiry_date datetime(6),
+    purpose varchar(32),
+    primary key (id),
+    constraint fk_verification_tokens_user foreign key (user_id) references users (id)
+) engine=InnoDB;
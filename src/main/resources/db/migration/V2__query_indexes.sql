@@ -0,0 +1,62 @@
+-- Composite indexes for the filters and sorts of the repositories in repo/.
+-- Where an index starts with a foreign key column it also serves that key,
+-- so InnoDB drops its implicit single-column index.
+
+-- products.search_text is not part of the V1 baseline, but databases last started
+-- with ddl-auto: update after it was added to the entity already have it
+set @add_search_text = (
+    select if(count(*) = 0, 'alter table products add column search_text varchar(1300)', 'do 0')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'products' and column_name = 'search_text');
+prepare add_search_text from @add_search_text;
+execute add_search_text;
+deallocate prepare add_search_text;
+
+-- Active listings: status = ?, optional category, newest first (ProductSpecification, findByStatus)
+create index idx_products_status_category_created on products (status, category_id, created_at);
+-- Price-sorted and price-filtered listings, and keyset pages on (price, id)
+create index idx_products_status_price on products (status, price, id);
+-- Seller dashboards: findBySeller plus a status filter
+create index idx_products_user_status on products (user_id, status);
+
+-- findByUserOrderByCreatedAtDesc, findByUserAndStatus
+create index idx_orders_user_created on orders (user_id, created_at);
+-- findByStatus and the keyset scan of findIdsByStatusAfter (status = ? and id > ? order by id)
+create index idx_orders_status on orders (status, id);
+-- findByCreatedAtBetween (revenue reports)
+create index idx_orders_created on orders (created_at);
+
+-- findOrderProductPairs reads both columns from the index alone
+create index idx_order_details_order_product on order_details (order_id, product_id);
+
+-- findByProductAndRating, countByProduct and the rating reconcile scan
+create index idx_reviews_product_rating on reviews (product_id, rating);
+-- findByProductAndVerified, countByProductAndVerified
+create index idx_reviews_product_verified on reviews (product_id, verified);
+-- findByUserAndProduct
+create index idx_reviews_user_product on reviews (user_id, product_id);
+
+-- findByReviewOrderByCreatedAtAsc
+create index idx_review_replies_review_created on review_replies (review_id, created_at);
+
+-- findAllValidTokenByUser
+create index idx_token_user_expired_revoked on token (user_id, expired, revoked);
+
+-- findByProductIdAndIsPrimaryTrue and the batched image load of listings
+create index idx_product_images_product_primary on product_images (product_id, is_primary);
+
+-- findByCartAndProduct, existsByCartIdAndProductId
+create index idx_cart_items_cart_product on cart_items (cart_id, product_id);
+
+-- findByStatus on posts, newest first
+create index idx_posts_status_created on posts (status, created_at);
+
+-- findByEmailAndOtpAndUsedFalse
+create index idx_otps_email_otp on otps (email, otp);
+
+-- findByToken, findByUserIdAndPurpose
+create index idx_verification_tokens_token on verification_tokens (token);
+create index idx_verification_tokens_user_purpose on verification_tokens (user_id, purpose);
+
+-- findByTransactionCode (payment callbacks)
+create index idx_withdrawal_transactions_code on withdrawal_transactions (transaction_code);
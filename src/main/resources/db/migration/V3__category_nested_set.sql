@@ -0,0 +1,6 @@
+-- Nested-set numbering of the category tree: a category's subtree is every
+-- category whose lft lies within its [lft, rgt]. Maintained by CategoryService;
+-- existing rows are numbered at startup while lft is still null.
+alter table categories add column lft integer, add column rgt integer;
+
+create index idx_categories_lft_rgt on categories (lft, rgt);
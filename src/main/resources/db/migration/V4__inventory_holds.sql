@@ -0,0 +1,13 @@
+-- Checkout holds of InventoryReservationLedger, one row per user. The ledger
+-- keeps the live state in memory; this copy only restores it after a restart.
+create table inventory_holds (
+    user_id integer not null,
+    -- productId:units pairs separated by commas, ascending product ID
+    quantities text not null,
+    expires_at datetime(6) not null,
+    primary key (user_id),
+    constraint fk_inventory_holds_user foreign key (user_id) references users (id)
+) engine=InnoDB;
+
+-- Startup cleanup of holds that expired while the application was down
+create index idx_inventory_holds_expires on inventory_holds (expires_at);
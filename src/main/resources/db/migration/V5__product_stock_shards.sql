@@ -0,0 +1,11 @@
+-- Stock of products in flash-sale mode, split over several rows so concurrent
+-- checkouts decrement different rows instead of queueing on the product row.
+-- A product is in flash-sale mode while it has rows here; products.stock_quantity
+-- then only mirrors their sum (FlashSaleStockSync).
+create table product_stock_shards (
+    product_id bigint not null,
+    shard integer not null,
+    stock_quantity integer not null,
+    primary key (product_id, shard),
+    constraint fk_product_stock_shards_product foreign key (product_id) references products (id)
+) engine=InnoDB;
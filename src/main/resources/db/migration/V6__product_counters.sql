@@ -0,0 +1,46 @@
+-- Denormalized review/favorite counters of products, written by the set-based
+-- updates in ProductRepository. Databases last started with ddl-auto: update
+-- after they were added to the entity already have them.
+set @add_product_counters = (
+    select if(count(*) = 0,
+              'alter table products
+                   add column rating_sum bigint not null default 0,
+                   add column rating_count integer not null default 0,
+                   add column rating_one_count integer not null default 0,
+                   add column rating_two_count integer not null default 0,
+                   add column rating_three_count integer not null default 0,
+                   add column rating_four_count integer not null default 0,
+                   add column rating_five_count integer not null default 0,
+                   add column favorite_count integer not null default 0',
+              'do 0')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'products' and column_name = 'rating_sum');
+prepare add_product_counters from @add_product_counters;
+execute add_product_counters;
+deallocate prepare add_product_counters;
+
+-- Fill them from the existing rows; the nightly reconcile (ProductStatsService) keeps them exact afterwards
+update products p
+left join (
+        select product_id,
+               sum(rating) as rating_sum,
+               count(*) as rating_count,
+               sum(rating = 1) as one_count,
+               sum(rating = 2) as two_count,
+               sum(rating = 3) as three_count,
+               sum(rating = 4) as four_count,
+               sum(rating = 5) as five_count
+        from reviews
+        group by product_id) r on r.product_id = p.id
+left join (
+        select product_id, count(*) as favorite_count
+        from favorites
+        group by product_id) f on f.product_id = p.id
+set p.rating_sum = coalesce(r.rating_sum, 0),
+    p.rating_count = coalesce(r.rating_count, 0),
+    p.rating_one_count = coalesce(r.one_count, 0),
+    p.rating_two_count = coalesce(r.two_count, 0),
+    p.rating_three_count = coalesce(r.three_count, 0),
+    p.rating_four_count = coalesce(r.four_count, 0),
+    p.rating_five_count = coalesce(r.five_count, 0),
+    p.favorite_count = coalesce(f.favorite_count, 0);
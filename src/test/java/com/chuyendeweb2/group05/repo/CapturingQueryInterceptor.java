@@ -0,0 +1,65 @@
+package com.chuyendeweb2.group05.repo;
+
+import com.mysql.cj.MysqlConnection;
+import com.mysql.cj.Query;
+import com.mysql.cj.interceptors.QueryInterceptor;
+import com.mysql.cj.log.Log;
+import com.mysql.cj.protocol.Resultset;
+import com.mysql.cj.protocol.ServerSession;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+/**
+ * Records the SQL the driver sends while capturing is on. Client-side prepared
+ * statements reach the interceptor with their parameters already inlined, so
+ * the captured text can be run with EXPLAIN as is.
+ */
+public class CapturingQueryInterceptor implements QueryInterceptor {
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+    private static volatile boolean capturing;
+
+    static void start() {
+        STATEMENTS.clear();
+        capturing = true;
+    }
+
+    static List<String> stop() {
+        capturing = false;
+        return List.copyOf(STATEMENTS);
+    }
+
+    @Override
+    public QueryInterceptor init(MysqlConnection conn, Properties props, Log log) {
+        return this;
+    }
+
+    @Override
+    public <T extends Resultset> T preProcess(Supplier<String> sql, Query interceptedQuery) {
+        if (capturing) {
+            String statement = sql.get();
+            if (statement != null) {
+                STATEMENTS.add(statement);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean executeTopLevelOnly() {
+        return true;
+    }
+
+    @Override
+    public void destroy() {
+    }
+
+    @Override
+    public <T extends Resultset> T postProcess(Supplier<String> sql, Query interceptedQuery, T originalResultSet,
+            ServerSession serverSession) {
+        return null;
+    }
+}
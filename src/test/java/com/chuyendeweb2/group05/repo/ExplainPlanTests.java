@@ -0,0 +1,192 @@
+package com.chuyendeweb2.group05.repo;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.chuyendeweb2.group05.entity.meta.Category;
+import com.chuyendeweb2.group05.entity.meta.Product;
+import com.chuyendeweb2.group05.entity.meta.User;
+import com.chuyendeweb2.group05.enums.OrderStatus;
+import com.chuyendeweb2.group05.enums.ProductStatus;
+import com.chuyendeweb2.group05.enums.Role;
+import com.chuyendeweb2.group05.specification.ProductSpecification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN on the SQL that Hibernate and JdbcTemplate actually send for
+ * the hot repository queries, captured at the driver with the parameters
+ * inlined. A table read without any usable index fails the test; whether
+ * MySQL picks the index depends on the data volume, having one does not.
+ * <p>
+ * Keep in step with the repositories in {@code repo/} and the indexes in
+ * {@code db/migration}. Runs against the configured MySQL database and rolls
+ * back.
+ */
+@DataJpaTest(properties = "spring.datasource.hikari.data-source-properties.queryInterceptors="
+        + "com.chuyendeweb2.group05.repo.CapturingQueryInterceptor")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ExplainPlanTests {
+
+    private static final Pattern SELECT_FROM_TABLE = Pattern.compile("(?is)^\\s*select\\b.*\\bfrom\\b.*");
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderDetailRepository orderDetailRepository;
+    @Autowired
+    private ReviewRepository reviewRepository;
+    @Autowired
+    private TokenRepository tokenRepository;
+    @Autowired
+    private CartItemRepository cartItemRepository;
+    @Autowired
+    private FavoriteRepository favoriteRepository;
+    @Autowired
+    private OtpRepository otpRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private User user;
+    private Product product;
+
+    @BeforeEach
+    void seed() {
+        String suffix = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        category = entityManager.persist(Category.builder()
+                .name("Explain test " + suffix)
+                .createdAt(now)
+                .updatedAt(now)
+                .isActive(true)
+                .lft(1)
+                .rgt(2)
+                .build());
+        user = entityManager.persist(User.builder()
+                .firstname("Explain")
+                .lastname("User")
+                .email("explain-" + suffix + "@example.com")
+                .password("x")
+                .role(Role.USER)
+                .build());
+        product = entityManager.persist(Product.builder()
+                .category(category)
+                .seller(user)
+                .name("Điện thoại")
+                .description("Explain test product")
+                .searchText("dien thoai explain test product")
+                .price(BigDecimal.valueOf(1000))
+                .stockQuantity(10)
+                .status(ProductStatus.ACTIVE)
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    // The seeded product fills each one-row page, so the count query runs as well
+    @Test
+    void productListingQueriesUseIndexes() {
+        assertIndexed(() -> productRepository.findListing(
+                ProductSpecification.searchProducts(null, ProductStatus.ACTIVE, category.getId(), null, null, null,
+                        null, null),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "createdAt"))));
+        assertIndexed(() -> productRepository.findListing(
+                ProductSpecification.searchProducts(null, ProductStatus.ACTIVE, null, null, BigDecimal.ZERO,
+                        BigDecimal.valueOf(1000000), null, null),
+                PageRequest.of(0, 1, Sort.by("price", "id"))));
+        assertIndexed(() -> productRepository.findListing(
+                ProductSpecification.searchProducts(null, ProductStatus.ACTIVE, null, user.getId(), null, null,
+                        null, null),
+                PageRequest.of(0, 1)));
+    }
+
+    @Test
+    void keywordSearchUsesIndexes() {
+        // The search_text LIKE itself cannot use an index; the status filter must
+        assertIndexed(() -> productRepository.findListing(
+                ProductSpecification.searchProducts("điện thoại", ProductStatus.ACTIVE, null, null, null, null,
+                        null, null),
+                PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "createdAt"))));
+        assertIndexed(() -> productRepository.findListing(
+                ProductSpecification.keyword("dien thoai")
+                        .and(ProductSpecification.searchProducts(null, ProductStatus.ACTIVE, null, null, null,
+                                null, null, null)),
+                PageRequest.of(0, 1)));
+    }
+
+    @Test
+    void productRepositoryQueriesUseIndexes() {
+        assertIndexed(() -> productRepository.findBySeller(user));
+        assertIndexed(() -> productRepository.findDocumentsAfter(ProductStatus.ACTIVE, 0L, PageRequest.of(0, 1000)));
+        assertIndexed(() -> productRepository.decrementStock(Map.of(product.getId(), 1)));
+    }
+
+    @Test
+    void orderQueriesUseIndexes() {
+        assertIndexed(() -> orderRepository.findByUserOrderByCreatedAtDesc(user));
+        assertIndexed(() -> orderRepository.findIdsByStatusAfter(OrderStatus.DELIVERED, 0L,
+                PageRequest.of(0, 1000)));
+        assertIndexed(() -> orderRepository.findByCreatedAtBetween(LocalDateTime.now().minusMonths(1),
+                LocalDateTime.now()));
+        assertIndexed(() -> orderDetailRepository.findOrderProductPairs(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void userQueriesUseIndexes() {
+        assertIndexed(() -> reviewRepository.findByProductAndRating(product, 5, PageRequest.of(0, 20)));
+        assertIndexed(() -> reviewRepository.countByProductAndVerified(product, true));
+        assertIndexed(() -> tokenRepository.findAllValidTokenByUser(user.getId()));
+        assertIndexed(() -> cartItemRepository.existsByCartIdAndProductId(1L, product.getId()));
+        assertIndexed(() -> favoriteRepository.findByUserAndProduct(user, product));
+        assertIndexed(() -> otpRepository.findByEmailAndOtpAndUsedFalse("a@b.c", "000000"));
+    }
+
+    // Runs the call, then EXPLAINs every query it sent
+    private void assertIndexed(Runnable call) {
+        CapturingQueryInterceptor.start();
+        try {
+            call.run();
+        } finally {
+            List<String> statements = CapturingQueryInterceptor.stop();
+            assertThat(statements).as("captured statements").isNotEmpty();
+
+            List<String> unindexed = new ArrayList<>();
+            for (String sql : statements) {
+                if (!SELECT_FROM_TABLE.matcher(sql).matches()) {
+                    continue;
+                }
+                for (Map<String, Object> row : jdbcTemplate.queryForList("explain " + sql)) {
+                    String table = String.valueOf(row.get("table"));
+                    // Derived tables and materialized subqueries have no indexes of their own
+                    if ("ALL".equals(row.get("type")) && row.get("possible_keys") == null
+                            && !table.startsWith("<")) {
+                        unindexed.add("full scan of " + table + " in: " + sql);
+                    }
+                }
+            }
+            assertThat(unindexed).as("tables read without a usable index").isEmpty();
+        }
+    }
+}
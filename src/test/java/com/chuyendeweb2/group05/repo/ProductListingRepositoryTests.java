@@ -0,0 +1,128 @@
+package com.chuyendeweb2.group05.repo;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.chuyendeweb2.group05.dto.ProductResponseDTO;
+import com.chuyendeweb2.group05.entity.meta.Category;
+import com.chuyendeweb2.group05.entity.meta.Product;
+import com.chuyendeweb2.group05.entity.meta.ProductImage;
+import com.chuyendeweb2.group05.entity.meta.User;
+import com.chuyendeweb2.group05.enums.ProductStatus;
+import com.chuyendeweb2.group05.enums.Role;
+import com.chuyendeweb2.group05.specification.ProductSpecification;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against the configured MySQL database; every test rolls back
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProductListingRepositoryTests {
+
+    private static final int PRODUCTS = 12;
+    private static final int IMAGES_PER_PRODUCT = 3;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private Integer sellerId;
+
+    @BeforeEach
+    void seed() {
+        String suffix = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        Category category = entityManager.persist(Category.builder()
+                .name("Listing test " + suffix)
+                .createdAt(now)
+                .updatedAt(now)
+                .isActive(true)
+                .build());
+        User seller = entityManager.persist(User.builder()
+                .firstname("Listing")
+                .lastname("Seller")
+                .email("listing-" + suffix + "@example.com")
+                .password("x")
+                .role(Role.USER)
+                .build());
+        sellerId = seller.getId();
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = entityManager.persist(Product.builder()
+                    .category(category)
+                    .seller(seller)
+                    .name("Product " + i)
+                    .description("Listing test product " + i)
+                    .price(BigDecimal.valueOf(1000 + i))
+                    .stockQuantity(10)
+                    .status(ProductStatus.ACTIVE)
+                    .build());
+            for (int j = 0; j < IMAGES_PER_PRODUCT; j++) {
+                entityManager.persist(ProductImage.builder()
+                        .product(product)
+                        .filename("p" + i + "-" + j + ".jpg")
+                        .url("/images/p" + i + "-" + j + ".jpg")
+                        .isPrimary(j == 0)
+                        .build());
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void listingPageWithImagesTakesThreeStatementsWhateverItsSize() {
+        for (int size : new int[] { 2, 5, 10 }) {
+            statistics.clear();
+
+            Page<ProductResponseDTO> page = productRepository.findListing(sellerProducts(),
+                    PageRequest.of(0, size, Sort.by("id")));
+
+            assertThat(page.getContent()).hasSize(size);
+            assertThat(page.getTotalElements()).isEqualTo(PRODUCTS);
+            assertThat(page.getContent())
+                    .allSatisfy(product -> assertThat(product.getImages()).hasSize(IMAGES_PER_PRODUCT));
+            // Page rows, the count and one query for the images of every product on the page
+            assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    void lastPageSkipsTheCountQuery() {
+        Page<ProductResponseDTO> page = productRepository.findListing(sellerProducts(),
+                PageRequest.of(0, PRODUCTS + 8, Sort.by("id")));
+
+        assertThat(page.getContent()).hasSize(PRODUCTS);
+        assertThat(page.getTotalElements()).isEqualTo(PRODUCTS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    private Specification<Product> sellerProducts() {
+        return ProductSpecification.searchProducts(null, ProductStatus.ACTIVE, null, sellerId, null, null, null,
+                null);
+    }
+}
@@ -0,0 +1,245 @@
+package com.chuyendeweb2.group05.repo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.chuyendeweb2.group05.entity.meta.Category;
+import com.chuyendeweb2.group05.entity.meta.Product;
+import com.chuyendeweb2.group05.entity.meta.User;
+import com.chuyendeweb2.group05.enums.ProductStatus;
+import com.chuyendeweb2.group05.enums.Role;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Checkouts commit from several threads, so the tests run outside a test
+// transaction against the configured MySQL database and delete their rows afterwards
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ProductStockRepositoryTests {
+
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Checkouts run in READ COMMITTED, as in OrderServiceImpl
+    private TransactionTemplate checkoutTransaction;
+    private Category category;
+    private User seller;
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        checkoutTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        checkoutTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+        String suffix = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            category = entityManager.persist(Category.builder()
+                    .name("Stock test " + suffix)
+                    .createdAt(now)
+                    .updatedAt(now)
+                    .isActive(true)
+                    .build());
+            seller = entityManager.persist(User.builder()
+                    .firstname("Stock")
+                    .lastname("Seller")
+                    .email("stock-" + suffix + "@example.com")
+                    .password("x")
+                    .role(Role.USER)
+                    .build());
+        });
+    }
+
+    @AfterEach
+    void cleanUp() {
+        for (Long productId : productIds) {
+            jdbcTemplate.update("delete from product_stock_shards where product_id = ?", productId);
+            jdbcTemplate.update("delete from products where id = ?", productId);
+        }
+        jdbcTemplate.update("delete from users where id = ?", seller.getId());
+        jdbcTemplate.update("delete from categories where id = ?", category.getId());
+    }
+
+    @Test
+    void concurrentCheckoutsNeverOversell() throws Exception {
+        Long first = createProduct(40);
+        Long second = createProduct(40);
+
+        // Every checkout takes one unit of both products and rolls back when either is short
+        List<Integer> sold = runCheckouts("two products, 40 units", 20,
+                () -> checkout(Map.of(second, 1, first, 1)));
+
+        assertThat(sold.stream().mapToInt(Integer::intValue).sum()).isEqualTo(40);
+        assertThat(stockOf(first)).isZero();
+        assertThat(stockOf(second)).isZero();
+    }
+
+    @Test
+    void flashSaleCheckoutsDrainTheShardsExactly() throws Exception {
+        Long productId = createProduct(60);
+        Long plainId = createProduct(1000);
+        transactionTemplate.executeWithoutResult(status -> productRepository.startFlashSale(productId, 4));
+
+        // Checkouts race for the shards until they run dry; the last ones find no free
+        // shard and go through the all-shards fallback
+        List<Integer> sold = runCheckouts("flash sale, 4 shards", 15,
+                () -> checkout(Map.of(productId, 1, plainId, 1)));
+
+        assertThat(sold.stream().mapToInt(Integer::intValue).sum()).isEqualTo(60);
+        assertThat(jdbcTemplate.queryForList(
+                "select stock_quantity from product_stock_shards where product_id = ?", Integer.class, productId))
+                .hasSize(4)
+                .containsOnly(0);
+        assertThat(stockOf(plainId)).isEqualTo(1000 - 60);
+
+        Integer stock = transactionTemplate.execute(status -> productRepository.endFlashSale(productId));
+        assertThat(stock).isZero();
+        assertThat(stockOf(productId)).isZero();
+    }
+
+    // Same load on one hot product, once as a single row and once spread over shards; compare the
+    // reported checkouts/s. Every checkout has stock, so only the row contention differs
+    @Test
+    void shardedAndSingleRowStockUnderTheSameLoad() throws Exception {
+        int attemptsPerThread = 50;
+        int units = THREADS * attemptsPerThread;
+        Long singleRowId = createProduct(units);
+        Long shardedId = createProduct(units);
+        transactionTemplate.executeWithoutResult(status -> productRepository.startFlashSale(shardedId, THREADS));
+
+        List<Integer> singleRow = runCheckouts("single row", attemptsPerThread,
+                () -> checkout(Map.of(singleRowId, 1)));
+        List<Integer> sharded = runCheckouts(THREADS + " shards", attemptsPerThread,
+                () -> checkout(Map.of(shardedId, 1)));
+
+        assertThat(singleRow.stream().mapToInt(Integer::intValue).sum()).isEqualTo(units);
+        assertThat(sharded.stream().mapToInt(Integer::intValue).sum()).isEqualTo(units);
+        assertThat(stockOf(singleRowId)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "select sum(stock_quantity) from product_stock_shards where product_id = ?", Integer.class,
+                shardedId)).isZero();
+    }
+
+    @Test
+    void syncFlashSaleStockCopiesTheShardSum() {
+        Long productId = createProduct(30);
+        transactionTemplate.executeWithoutResult(status -> productRepository.startFlashSale(productId, 3));
+        assertThat(checkout(Map.of(productId, 5))).isTrue();
+
+        // The shards are current at once; the products row lags until the sync
+        assertThat(productRepository.findFlashSaleStock(List.of(productId))).containsEntry(productId, 25);
+        assertThat(stockOf(productId)).isEqualTo(30);
+
+        assertThat(productRepository.syncFlashSaleStock()).contains(productId);
+        assertThat(stockOf(productId)).isEqualTo(25);
+
+        // A sale that has ended is left alone
+        transactionTemplate.execute(status -> productRepository.endFlashSale(productId));
+        assertThat(productRepository.syncFlashSaleStock()).doesNotContain(productId);
+        assertThat(stockOf(productId)).isEqualTo(25);
+        assertThat(productRepository.findFlashSaleStock(List.of(productId))).isEmpty();
+    }
+
+    // Runs attemptsPerThread checkouts on each thread, reports the throughput and returns the units each
+    // thread sold
+    private List<Integer> runCheckouts(String label, int attemptsPerThread, Callable<Boolean> checkout)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int sold = 0;
+                    for (int attempt = 0; attempt < attemptsPerThread; attempt++) {
+                        if (checkout.call()) {
+                            sold++;
+                        }
+                    }
+                    return sold;
+                }));
+            }
+            long startedAt = System.nanoTime();
+            start.countDown();
+
+            List<Integer> sold = new ArrayList<>();
+            for (Future<Integer> result : results) {
+                sold.add(result.get(60, TimeUnit.SECONDS));
+            }
+            double seconds = (System.nanoTime() - startedAt) / 1e9;
+            int checkouts = sold.stream().mapToInt(Integer::intValue).sum();
+            System.out.printf("%s: %d of %d checkouts in %.0f ms, %.0f checkouts/s (%.0f attempts/s)%n", label,
+                    checkouts, THREADS * attemptsPerThread, seconds * 1000, checkouts / seconds,
+                    THREADS * attemptsPerThread / seconds);
+            return sold;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // One checkout transaction; rolled back when any product is short
+    private boolean checkout(Map<Long, Integer> quantities) {
+        return Boolean.TRUE.equals(checkoutTransaction.execute(status -> {
+            if (!productRepository.decrementStock(quantities).isEmpty()) {
+                status.setRollbackOnly();
+                return false;
+            }
+            return true;
+        }));
+    }
+
+    private Long createProduct(int stock) {
+        Long productId = transactionTemplate.execute(status -> entityManager.persist(Product.builder()
+                .category(category)
+                .seller(seller)
+                .name("Stock test product")
+                .description("Stock test product")
+                .price(BigDecimal.valueOf(1000))
+                .stockQuantity(stock)
+                .status(ProductStatus.ACTIVE)
+                .build()).getId());
+        productIds.add(productId);
+        return productId;
+    }
+
+    private int stockOf(Long productId) {
+        return jdbcTemplate.queryForObject("select stock_quantity from products where id = ?", Integer.class,
+                productId);
+    }
+}
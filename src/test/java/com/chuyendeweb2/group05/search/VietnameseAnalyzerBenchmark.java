@@ -0,0 +1,103 @@
+package com.chuyendeweb2.group05.search;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.Normalizer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link VietnameseAnalyzer} on product names as sellers type
+ * them: precomposed and decomposed Vietnamese, plain ASCII and model
+ * numbers. Each operation analyzes every name once. Not run by the build;
+ * after {@code mvn test-compile}, run {@link #main} with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VietnameseAnalyzerBenchmark {
+
+    private static final String[] PRECOMPOSED = {
+            "Điện thoại Samsung Galaxy A54 5G 128GB - Chính hãng",
+            "Áo khoác nữ dáng dài lót lông cừu",
+            "Tủ lạnh Panasonic Inverter 322 lít NR-BC360QKVN",
+            "Bàn phím cơ không dây Logitech MX Mechanical (mới 99%)",
+            "Nồi cơm điện tử Sharp 1.8 lít KS-COM186EV",
+            "Giày thể thao nam đế êm, chống trượt",
+            "Đồng hồ thông minh Xiaomi Redmi Watch 3 Active",
+            "Sữa rửa mặt dịu nhẹ cho da nhạy cảm 150ml",
+            "Máy lọc không khí Sharp FP-J30E-A",
+            "Sách Tiếng Việt lớp 1 tập hai",
+    };
+
+    private static final String[] ASCII = {
+            "iPhone 13 Pro Max 256GB",
+            "Laptop Dell Inspiron 15 3520 i5 1235U",
+            "USB Kingston DataTraveler 64GB",
+            "Tai nghe Bluetooth Sony WH-1000XM5",
+            "Chuot gaming Razer DeathAdder V3",
+    };
+
+    private final String[] decomposed = new String[PRECOMPOSED.length];
+
+    public VietnameseAnalyzerBenchmark() {
+        for (int i = 0; i < PRECOMPOSED.length; i++) {
+            decomposed[i] = Normalizer.normalize(PRECOMPOSED[i], Normalizer.Form.NFD);
+        }
+    }
+
+    @Benchmark
+    public void foldPrecomposed(Blackhole blackhole) {
+        for (String name : PRECOMPOSED) {
+            blackhole.consume(VietnameseAnalyzer.fold(name));
+        }
+    }
+
+    @Benchmark
+    public void foldDecomposed(Blackhole blackhole) {
+        for (String name : decomposed) {
+            blackhole.consume(VietnameseAnalyzer.fold(name));
+        }
+    }
+
+    @Benchmark
+    public void tokenizePrecomposed(Blackhole blackhole) {
+        for (String name : PRECOMPOSED) {
+            blackhole.consume(VietnameseAnalyzer.tokenize(name));
+        }
+    }
+
+    @Benchmark
+    public void tokenizeAscii(Blackhole blackhole) {
+        for (String name : ASCII) {
+            blackhole.consume(VietnameseAnalyzer.tokenize(name));
+        }
+    }
+
+    @Benchmark
+    public void analyzePrecomposed(Blackhole blackhole) {
+        for (String name : PRECOMPOSED) {
+            blackhole.consume(VietnameseAnalyzer.analyze(name));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VietnameseAnalyzerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
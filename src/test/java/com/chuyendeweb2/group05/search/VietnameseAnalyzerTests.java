@@ -0,0 +1,55 @@
+package com.chuyendeweb2.group05.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.Normalizer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VietnameseAnalyzerTests {
+
+    @Test
+    void foldDropsDiacriticsAndLowercases() {
+        assertThat(VietnameseAnalyzer.fold("Điện Thoại Di Động")).isEqualTo("dien thoai di dong");
+        assertThat(VietnameseAnalyzer.fold("Áo khoác nữ")).isEqualTo("ao khoac nu");
+        assertThat(VietnameseAnalyzer.fold("ĐỒNG HỒ")).isEqualTo("dong ho");
+    }
+
+    @Test
+    void foldMatchesPrecomposedAndDecomposedInput() {
+        String precomposed = "Tiếng Việt";
+        String decomposed = Normalizer.normalize(precomposed, Normalizer.Form.NFD);
+
+        assertThat(VietnameseAnalyzer.fold(decomposed)).isEqualTo(VietnameseAnalyzer.fold(precomposed));
+        assertThat(VietnameseAnalyzer.fold(precomposed)).isEqualTo("tieng viet");
+    }
+
+    @Test
+    void foldKeepsPunctuationAndDigits() {
+        assertThat(VietnameseAnalyzer.fold("iPhone 13, 128GB!")).isEqualTo("iphone 13, 128gb!");
+        assertThat(VietnameseAnalyzer.fold(null)).isEmpty();
+        assertThat(VietnameseAnalyzer.fold("")).isEmpty();
+    }
+
+    @Test
+    void tokenizeSplitsOnNonLettersAndDropsStopwords() {
+        assertThat(VietnameseAnalyzer.tokenize("Bàn phím và chuột, của Logitech (mới 99%)"))
+                .containsExactly("ban", "phim", "chuot", "logitech", "moi", "99");
+        assertThat(VietnameseAnalyzer.tokenize("  ...  ")).isEmpty();
+    }
+
+    @Test
+    void analyzeJoinsTokensWithSingleSpaces() {
+        assertThat(VietnameseAnalyzer.analyze("Điện   thoại - Samsung  Galaxy"))
+                .isEqualTo("dien thoai samsung galaxy");
+    }
+
+    @Test
+    void tokenizeQueryKeepsTrailingStopwordAsPrefix() {
+        // "ma" may be the start of "may" while the user is still typing
+        assertThat(VietnameseAnalyzer.tokenizeQuery("tủ lạnh ma")).containsExactly("tu", "lanh", "ma");
+        assertThat(VietnameseAnalyzer.tokenizeQuery("tủ lạnh ma ")).containsExactly("tu", "lanh", "ma");
+        assertThat(VietnameseAnalyzer.tokenizeQuery("va tủ lạnh")).containsExactly("tu", "lanh");
+        assertThat(VietnameseAnalyzer.tokenize("tủ lạnh ma")).containsExactly("tu", "lanh");
+    }
+}
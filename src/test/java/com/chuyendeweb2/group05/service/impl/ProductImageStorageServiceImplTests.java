@@ -0,0 +1,90 @@
+package com.chuyendeweb2.group05.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductImageStorageServiceImplTests {
+
+    private static final int IMAGES = 10;
+    private static final int IMAGE_BYTES = 256 * 1024;
+    private static final int ROUNDS = 5;
+
+    @TempDir
+    Path uploadDir;
+
+    // Every image is written to a temp file, fsynced and renamed; the fsyncs are what parallel writes overlap
+    @Test
+    void parallelAndSequentialSavesStoreEveryImage() throws IOException {
+        List<MultipartFile> images = jpegs();
+
+        long sequential = medianSaveMillis(1, images);
+        long parallel = medianSaveMillis(4, images);
+
+        System.out.printf("saveAll of %d images: %d ms on 1 thread, %d ms on 4 threads (median of %d)%n",
+                IMAGES, sequential, parallel, ROUNDS);
+        try (var stored = Files.list(uploadDir)) {
+            // One warm-up and ROUNDS measured calls per thread count, and no temp files left behind
+            assertThat(stored.filter(file -> file.toString().endsWith(".jpg")).count())
+                    .isEqualTo(2L * (ROUNDS + 1) * IMAGES);
+        }
+        try (var stored = Files.list(uploadDir)) {
+            assertThat(stored.filter(file -> file.toString().endsWith(".part"))).isEmpty();
+        }
+    }
+
+    private long medianSaveMillis(int threads, List<MultipartFile> images) throws IOException {
+        ProductImageStorageServiceImpl storage = storage(threads);
+        try {
+            assertThat(storage.saveAll(images)).hasSize(IMAGES);
+
+            long[] millis = new long[ROUNDS];
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                List<String> filenames = storage.saveAll(images);
+                millis[round] = (System.nanoTime() - start) / 1_000_000;
+                assertThat(filenames).hasSize(IMAGES).doesNotHaveDuplicates();
+            }
+            Arrays.sort(millis);
+            return millis[ROUNDS / 2];
+        } finally {
+            storage.shutdown();
+        }
+    }
+
+    private ProductImageStorageServiceImpl storage(int threads) {
+        ProductImageStorageServiceImpl storage = new ProductImageStorageServiceImpl();
+        ReflectionTestUtils.setField(storage, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(storage, "ingestThreads", threads);
+        ReflectionTestUtils.setField(storage, "maxQueuedWrites", 64);
+        storage.init();
+        return storage;
+    }
+
+    // JPEG signature followed by random bytes, about the size of a phone photo after resizing
+    private static List<MultipartFile> jpegs() {
+        Random random = new Random(42);
+        List<MultipartFile> images = new ArrayList<>();
+        for (int i = 0; i < IMAGES; i++) {
+            byte[] content = new byte[IMAGE_BYTES];
+            random.nextBytes(content);
+            content[0] = (byte) 0xFF;
+            content[1] = (byte) 0xD8;
+            content[2] = (byte) 0xFF;
+            images.add(new MockMultipartFile("images", "image-" + i + ".jpg", "image/jpeg", content));
+        }
+        return images;
+    }
+}